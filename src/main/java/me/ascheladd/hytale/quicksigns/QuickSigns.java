@@ -1,6 +1,9 @@
 package me.ascheladd.hytale.quicksigns;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 import javax.annotation.Nonnull;
 
@@ -8,12 +11,22 @@ import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.server.OpenCustomUIInteraction;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.world.events.AddWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.ChunkPreLoadProcessEvent;
+import com.hypixel.hytale.server.core.universe.world.events.ChunkUnloadEvent;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
 import com.hypixel.hytale.server.core.util.Config;
 
+import me.ascheladd.hytale.quicksigns.command.QuickSignsCommand;
 import me.ascheladd.hytale.quicksigns.config.QuickSignsConfig;
+import me.ascheladd.hytale.quicksigns.hologram.HologramComponent;
+import me.ascheladd.hytale.quicksigns.hologram.HologramOperations;
+import me.ascheladd.hytale.quicksigns.hologram.HologramTickSystem;
 import me.ascheladd.hytale.quicksigns.listener.BlockBreakListener;
 import me.ascheladd.hytale.quicksigns.listener.SignPlaceListener;
+import me.ascheladd.hytale.quicksigns.listener.WorldLifecycleListener;
 import me.ascheladd.hytale.quicksigns.storage.SignHologramStorage;
+import me.ascheladd.hytale.quicksigns.storage.SignStorage;
 import me.ascheladd.hytale.quicksigns.ui.SignTextInputSupplier;
 
 /**
@@ -24,8 +37,16 @@ public final class QuickSigns extends JavaPlugin {
     
     private static QuickSigns instance;
     private static boolean debugMode = false;
+    private static boolean singleEntityHolograms = true;
+    private static int hologramViewDistance = 64;
+    private static int hologramViewHysteresis = 8;
+    private static int reconcileBudgetMicros = 500;
+    private static int reconcileIntervalSeconds = 300;
+    private static int hologramBudgetMicros = 2000;
+    private static int hologramBudgetOperations = 0;
     private final Config<QuickSignsConfig> config;
     private SignHologramStorage signHologramStorage;
+    private HologramOperations hologramOperations;
     
     /**
      * Constructs the QuickSigns plugin.
@@ -41,27 +62,75 @@ public final class QuickSigns extends JavaPlugin {
     protected void setup() {
         getLogger().atInfo().log("Setting up QuickSigns...");
         
-        // Load configuration (auto-generates with defaults if missing)
-        config.load().thenAccept(cfg -> {
-            debugMode = cfg.isDebug();
-            getLogger().atInfo().log("Configuration loaded at " + getDataDirectory().resolve("config.json").toAbsolutePath());
-            config.save();
-        });
+        // Load configuration first (auto-generates with defaults if missing), since it picks the storage engine
+        QuickSignsConfig cfg = config.load().join();
+        debugMode = cfg.isDebug();
+        singleEntityHolograms = cfg.isSingleEntityHolograms();
+        hologramViewDistance = cfg.getHologramViewDistance();
+        hologramViewHysteresis = cfg.getHologramViewHysteresis();
+        reconcileBudgetMicros = cfg.getReconcileBudgetMicros();
+        reconcileIntervalSeconds = cfg.getReconcileIntervalSeconds();
+        hologramBudgetMicros = cfg.getHologramBudgetMicros();
+        hologramBudgetOperations = cfg.getHologramBudgetOperations();
+        getLogger().atInfo().log("Configuration loaded at " + getDataDirectory().resolve("config.json").toAbsolutePath());
+        config.save();
         
-        // Initialize storage
+        // Initialize storage with the configured engine before any world can be added
         Path dataFolder = this.getDataDirectory().toAbsolutePath();
-        signHologramStorage = new SignHologramStorage(dataFolder, getLogger());
+        signHologramStorage = new SignHologramStorage(dataFolder, cfg.getStorageEngine(), getLogger());
+        signHologramStorage.setCheckpointTiming(cfg.getSaveQuietSeconds(), cfg.getSaveMaxDelaySeconds());
+        signHologramStorage.setJsonExport(cfg.isExportJson());
+        importJson(dataFolder, cfg.getImportJson());
+        hologramOperations = new HologramOperations(signHologramStorage);
         
         // Register sign interaction UI for editing signs with F button (not working right now)
         @SuppressWarnings("null")
         @Nonnull var registry = this.getCodecRegistry(OpenCustomUIInteraction.PAGE_CODEC);
         registry.register("QuickSigns_SignEdit", SignTextInputSupplier.class, SignTextInputSupplier.CODEC);
         
+        // Register the hologram marker component before any hologram is spawned or loaded
+        HologramComponent.setComponentType(this.getEntityStoreRegistry().registerComponent(
+            HologramComponent.class, "QuickSigns_Hologram", HologramComponent.CODEC));
+        
         // Register event listeners
-        this.getEntityStoreRegistry().registerSystem(new BlockBreakListener(signHologramStorage));
-        this.getEntityStoreRegistry().registerSystem(new SignPlaceListener(signHologramStorage));
+        this.getEntityStoreRegistry().registerSystem(new BlockBreakListener(signHologramStorage, hologramOperations));
+        this.getEntityStoreRegistry().registerSystem(new SignPlaceListener(hologramOperations));
+        
+        // Start each world's hologram tick, and with it a fresh hologram budget, on the world thread
+        this.getEntityStoreRegistry().registerSystem(new HologramTickSystem(hologramOperations));
+        
+        // Load and unload sign storage with its world, and page signs in and out with their chunk
+        WorldLifecycleListener worldListener = new WorldLifecycleListener(signHologramStorage, hologramOperations);
+        this.getEventRegistry().registerGlobal(AddWorldEvent.class, worldListener::onWorldAdd);
+        this.getEventRegistry().registerGlobal(RemoveWorldEvent.class, worldListener::onWorldRemove);
+        this.getEventRegistry().registerGlobal(ChunkPreLoadProcessEvent.class, worldListener::onChunkLoad);
+        this.getEventRegistry().registerGlobal(ChunkUnloadEvent.class, worldListener::onChunkUnload);
         
-        getLogger().atInfo().log("Enabled! Loaded " + signHologramStorage.getAllSignHolograms().size() + " sign holograms.");
+        // Register commands
+        this.getCommandRegistry().registerCommand(new QuickSignsCommand(signHologramStorage, hologramOperations));
+        
+        getLogger().atInfo().log("Enabled! Sign holograms are loaded per world as worlds start.");
+    }
+
+    /**
+     * Imports the signs of the JSON file named in the config, then renames it to {@code *.imported}
+     * so the next start does not import it again over newer changes.
+     */
+    private void importJson(Path dataFolder, String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            return;
+        }
+        Path source = dataFolder.resolve(fileName);
+        if (!Files.exists(source)) {
+            getLogger().atWarning().log("JSON file to import not found: " + source);
+            return;
+        }
+        try {
+            signHologramStorage.importJson(source);
+            Files.move(source, source.resolveSibling(source.getFileName() + ".imported"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            getLogger().atSevere().log("Failed to import signs from " + source + ": " + e.getMessage());
+        }
     }
 
     @Override
@@ -73,6 +142,11 @@ public final class QuickSigns extends JavaPlugin {
     protected void shutdown() {
         getLogger().atInfo().log("QuickSigns shutting down...");
         
+        // Stop visibility passes and reconciliation before the storage goes away
+        if (hologramOperations != null) {
+            hologramOperations.shutdown();
+        }
+        
         // Save and cleanup storage
         if (signHologramStorage != null) {
             signHologramStorage.shutdown();
@@ -93,10 +167,18 @@ public final class QuickSigns extends JavaPlugin {
      * Gets the sign hologram storage instance.
      * @return The sign hologram storage
      */
-    public SignHologramStorage getSignHologramStorage() {
+    public SignStorage getSignHologramStorage() {
         return signHologramStorage;
     }
     
+    /**
+     * Gets the per-world hologram operation queues.
+     * @return The hologram operation queues
+     */
+    public HologramOperations getHologramOperations() {
+        return hologramOperations;
+    }
+    
     /**
      * Gets the configuration instance.
      * @return The plugin configuration
@@ -122,6 +204,62 @@ public final class QuickSigns extends JavaPlugin {
         return debugMode;
     }
     
+    /**
+     * Check whether new sign text is shown by one multi-line hologram entity instead of one entity per line.
+     * @return true if single-entity holograms are enabled
+     */
+    public static boolean isSingleEntityHolograms() {
+        return singleEntityHolograms;
+    }
+    
+    /**
+     * Gets the distance in blocks within which sign holograms are shown.
+     * @return The view distance, or 0 if holograms are never despawned
+     */
+    public static int getHologramViewDistance() {
+        return hologramViewDistance;
+    }
+    
+    /**
+     * Gets how many blocks beyond the view distance a hologram stays spawned.
+     * @return The hysteresis margin
+     */
+    public static int getHologramViewHysteresis() {
+        return hologramViewHysteresis;
+    }
+    
+    /**
+     * Gets the time in microseconds the hologram reconciler may use per world per tick.
+     * @return The per-tick budget, or 0 if reconciliation is disabled
+     */
+    public static int getReconcileBudgetMicros() {
+        return reconcileBudgetMicros;
+    }
+    
+    /**
+     * Gets the number of seconds between hologram reconciliation sweeps.
+     * @return The sweep interval
+     */
+    public static int getReconcileIntervalSeconds() {
+        return reconcileIntervalSeconds;
+    }
+    
+    /**
+     * Gets the time in microseconds hologram spawn and remove operations may use per world per tick.
+     * @return The per-tick budget, or 0 for no time limit
+     */
+    public static int getHologramBudgetMicros() {
+        return hologramBudgetMicros;
+    }
+    
+    /**
+     * Gets the number of hologram spawn and remove operations applied per world per tick at most.
+     * @return The per-tick operation limit, or 0 for no limit
+     */
+    public static int getHologramBudgetOperations() {
+        return hologramBudgetOperations;
+    }
+    
     /**
      * Log a debug message if debug mode is enabled.
      * @param message The debug message to log
@@ -0,0 +1,62 @@
+package me.ascheladd.hytale.quicksigns.command;
+
+import javax.annotation.Nonnull;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.CommandBase;
+
+import me.ascheladd.hytale.quicksigns.QuickSigns;
+import me.ascheladd.hytale.quicksigns.hologram.HologramOperations;
+import me.ascheladd.hytale.quicksigns.storage.SignHologramStorage;
+import me.ascheladd.hytale.quicksigns.storage.TextInterner;
+
+/**
+ * /quicksigns - prints sign storage statistics.
+ */
+public class QuickSignsCommand extends CommandBase {
+
+    private final SignHologramStorage signHologramStorage;
+    private final HologramOperations hologramOperations;
+
+    /**
+     * Creates the stats command.
+     * @param signHologramStorage The sign hologram storage instance
+     * @param hologramOperations The per-world hologram operation queues
+     */
+    public QuickSignsCommand(SignHologramStorage signHologramStorage, HologramOperations hologramOperations) {
+        super("quicksigns", "Shows QuickSigns storage statistics");
+        this.signHologramStorage = signHologramStorage;
+        this.hologramOperations = hologramOperations;
+    }
+
+    @Override
+    protected void executeSync(@Nonnull CommandContext ctx) {
+        long queries = signHologramStorage.getFilterQueryCount();
+        long fastPath = signHologramStorage.getFilterFastPathCount();
+        double fastPathPercent = queries > 0 ? fastPath * 100.0 / queries : 0.0;
+
+        ctx.sendMessage(Message.raw("QuickSigns: " + signHologramStorage.getSignCount() + " resident signs in "
+            + signHologramStorage.getLoadedWorldCount() + " loaded worlds"));
+        ctx.sendMessage(Message.raw(String.format(
+            "Block break fast path: %d / %d (%.1f%%), filter size %d bits",
+            fastPath, queries, fastPathPercent, signHologramStorage.getFilterBitCount()
+        )));
+        ctx.sendMessage(Message.raw("Holograms out of view (despawned): " + hologramOperations.getCulledSignCount()));
+        ctx.sendMessage(Message.raw("Hologram queue: " + hologramOperations.getQueueDepth() + " waiting, "
+            + hologramOperations.getDeferredOperationCount() + " deferred in " + hologramOperations.getBudgetLimitedDrainCount()
+            + " over-budget ticks"));
+        TextInterner.Usage text = signHologramStorage.measureSharedText();
+        ctx.sendMessage(Message.raw(String.format(
+            "Shared sign text: %d lines of resident sign records held as %d distinct lines, about %d KiB saved in records; %d lines shared in total",
+            text.getReferenceCount(), text.getDistinctLineCount(), text.getBytesSaved() / 1024,
+            TextInterner.getDistinctLineCount()
+        )));
+        ctx.sendMessage(Message.raw(QuickSigns.isSingleEntityHolograms()
+            ? "Nameplate text: not shared, each sign hologram holds its lines joined in a copy of its own"
+            : "Nameplate text: shared, each line hologram holds the same line as the sign records"));
+        ctx.sendMessage(Message.raw("Reconciler: removed " + hologramOperations.getReconciledDeadSignCount() + " dead signs, rebuilt "
+            + hologramOperations.getReconciledRespawnCount() + " signs, removed " + hologramOperations.getReconciledOrphanCount()
+            + " orphan holograms"));
+    }
+}
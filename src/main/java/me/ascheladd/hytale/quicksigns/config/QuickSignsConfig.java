@@ -4,6 +4,8 @@ import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 
+import me.ascheladd.hytale.quicksigns.storage.SignHologramStorage;
+
 /**
  * Configuration settings for QuickSigns plugin.
  */
@@ -17,9 +19,69 @@ public class QuickSignsConfig {
             (config, value) -> config.debug = value,
             config -> config.debug)
         .add()
+        .append(new KeyedCodec<>("SingleEntityHolograms", Codec.BOOLEAN),
+            (config, value) -> config.singleEntityHolograms = value,
+            config -> config.singleEntityHolograms)
+        .add()
+        .append(new KeyedCodec<>("HologramViewDistance", Codec.INTEGER),
+            (config, value) -> config.hologramViewDistance = value,
+            config -> config.hologramViewDistance)
+        .add()
+        .append(new KeyedCodec<>("HologramViewHysteresis", Codec.INTEGER),
+            (config, value) -> config.hologramViewHysteresis = value,
+            config -> config.hologramViewHysteresis)
+        .add()
+        .append(new KeyedCodec<>("ReconcileBudgetMicros", Codec.INTEGER),
+            (config, value) -> config.reconcileBudgetMicros = value,
+            config -> config.reconcileBudgetMicros)
+        .add()
+        .append(new KeyedCodec<>("ReconcileIntervalSeconds", Codec.INTEGER),
+            (config, value) -> config.reconcileIntervalSeconds = value,
+            config -> config.reconcileIntervalSeconds)
+        .add()
+        .append(new KeyedCodec<>("HologramBudgetMicros", Codec.INTEGER),
+            (config, value) -> config.hologramBudgetMicros = value,
+            config -> config.hologramBudgetMicros)
+        .add()
+        .append(new KeyedCodec<>("HologramBudgetOperations", Codec.INTEGER),
+            (config, value) -> config.hologramBudgetOperations = value,
+            config -> config.hologramBudgetOperations)
+        .add()
+        .append(new KeyedCodec<>("SaveQuietSeconds", Codec.INTEGER),
+            (config, value) -> config.saveQuietSeconds = value,
+            config -> config.saveQuietSeconds)
+        .add()
+        .append(new KeyedCodec<>("SaveMaxDelaySeconds", Codec.INTEGER),
+            (config, value) -> config.saveMaxDelaySeconds = value,
+            config -> config.saveMaxDelaySeconds)
+        .add()
+        .append(new KeyedCodec<>("StorageEngine", Codec.STRING),
+            (config, value) -> config.storageEngine = value,
+            config -> config.storageEngine)
+        .add()
+        .append(new KeyedCodec<>("ExportJson", Codec.BOOLEAN),
+            (config, value) -> config.exportJson = value,
+            config -> config.exportJson)
+        .add()
+        .append(new KeyedCodec<>("ImportJson", Codec.STRING),
+            (config, value) -> config.importJson = value,
+            config -> config.importJson)
+        .add()
         .build();
     
     private boolean debug = false;
+    private boolean singleEntityHolograms = true;
+    private int hologramViewDistance = 64;
+    private int hologramViewHysteresis = 8;
+    private int reconcileBudgetMicros = 500;
+    private int reconcileIntervalSeconds = 300;
+    private int hologramBudgetMicros = 2000;
+    private int hologramBudgetOperations = 0;
+    private int saveQuietSeconds = SignHologramStorage.DEFAULT_CHECKPOINT_QUIET_SECONDS;
+    private int saveMaxDelaySeconds = SignHologramStorage.DEFAULT_CHECKPOINT_MAX_DELAY_SECONDS;
+    private String storageEngine = "Regions";
+    private boolean exportJson = false;
+    private String importJson = "";
     
     /**
      * Creates a new QuickSignsConfig with default settings.
@@ -42,4 +104,200 @@ public class QuickSignsConfig {
     public void setDebug(boolean debug) {
         this.debug = debug;
     }
+    
+    /**
+     * Get whether all lines of a sign are shown by a single hologram entity.
+     * @return true for one multi-line entity per sign, false for one entity per line
+     */
+    public boolean isSingleEntityHolograms() {
+        return singleEntityHolograms;
+    }
+    
+    /**
+     * Set whether all lines of a sign are shown by a single hologram entity.
+     * @param singleEntityHolograms true for one multi-line entity per sign, false for one entity per line
+     */
+    public void setSingleEntityHolograms(boolean singleEntityHolograms) {
+        this.singleEntityHolograms = singleEntityHolograms;
+    }
+    
+    /**
+     * Get the distance in blocks within which sign holograms are shown.
+     * @return The view distance, or 0 if holograms are never despawned
+     */
+    public int getHologramViewDistance() {
+        return hologramViewDistance;
+    }
+    
+    /**
+     * Set the distance in blocks within which sign holograms are shown.
+     * @param hologramViewDistance The view distance, or 0 to never despawn holograms
+     */
+    public void setHologramViewDistance(int hologramViewDistance) {
+        this.hologramViewDistance = hologramViewDistance;
+    }
+    
+    /**
+     * Get how many blocks beyond the view distance a hologram stays spawned.
+     * @return The hysteresis margin
+     */
+    public int getHologramViewHysteresis() {
+        return hologramViewHysteresis;
+    }
+    
+    /**
+     * Set how many blocks beyond the view distance a hologram stays spawned.
+     * @param hologramViewHysteresis The hysteresis margin
+     */
+    public void setHologramViewHysteresis(int hologramViewHysteresis) {
+        this.hologramViewHysteresis = hologramViewHysteresis;
+    }
+    
+    /**
+     * Get the time in microseconds the hologram reconciler may use per world per tick.
+     * @return The per-tick budget, or 0 if reconciliation is disabled
+     */
+    public int getReconcileBudgetMicros() {
+        return reconcileBudgetMicros;
+    }
+    
+    /**
+     * Set the time in microseconds the hologram reconciler may use per world per tick.
+     * @param reconcileBudgetMicros The per-tick budget, or 0 to disable reconciliation
+     */
+    public void setReconcileBudgetMicros(int reconcileBudgetMicros) {
+        this.reconcileBudgetMicros = reconcileBudgetMicros;
+    }
+    
+    /**
+     * Get the number of seconds between the end of one reconciliation sweep and the start of the next.
+     * @return The sweep interval
+     */
+    public int getReconcileIntervalSeconds() {
+        return reconcileIntervalSeconds;
+    }
+    
+    /**
+     * Set the number of seconds between the end of one reconciliation sweep and the start of the next.
+     * @param reconcileIntervalSeconds The sweep interval
+     */
+    public void setReconcileIntervalSeconds(int reconcileIntervalSeconds) {
+        this.reconcileIntervalSeconds = reconcileIntervalSeconds;
+    }
+    
+    /**
+     * Get the time in microseconds hologram spawn and remove operations may use per world per tick.
+     * @return The per-tick budget, or 0 for no time limit
+     */
+    public int getHologramBudgetMicros() {
+        return hologramBudgetMicros;
+    }
+    
+    /**
+     * Set the time in microseconds hologram spawn and remove operations may use per world per tick.
+     * Operations beyond it are carried over to the next tick.
+     * @param hologramBudgetMicros The per-tick budget, or 0 for no time limit
+     */
+    public void setHologramBudgetMicros(int hologramBudgetMicros) {
+        this.hologramBudgetMicros = hologramBudgetMicros;
+    }
+    
+    /**
+     * Get the number of hologram spawn and remove operations applied per world per tick at most.
+     * @return The per-tick operation limit, or 0 for no limit
+     */
+    public int getHologramBudgetOperations() {
+        return hologramBudgetOperations;
+    }
+    
+    /**
+     * Set the number of hologram spawn and remove operations applied per world per tick at most.
+     * Operations beyond it are carried over to the next tick.
+     * @param hologramBudgetOperations The per-tick operation limit, or 0 for no limit
+     */
+    public void setHologramBudgetOperations(int hologramBudgetOperations) {
+        this.hologramBudgetOperations = hologramBudgetOperations;
+    }
+    
+    /**
+     * Get how long a world must go without sign changes before its storage is checkpointed.
+     * @return The quiet period in seconds
+     */
+    public int getSaveQuietSeconds() {
+        return saveQuietSeconds;
+    }
+    
+    /**
+     * Set how long a world must go without sign changes before its storage is checkpointed.
+     * @param saveQuietSeconds The quiet period in seconds
+     */
+    public void setSaveQuietSeconds(int saveQuietSeconds) {
+        this.saveQuietSeconds = saveQuietSeconds;
+    }
+    
+    /**
+     * Get the longest time after a world's first unsaved sign change before its storage is checkpointed.
+     * @return The maximum delay in seconds
+     */
+    public int getSaveMaxDelaySeconds() {
+        return saveMaxDelaySeconds;
+    }
+    
+    /**
+     * Set the longest time after a world's first unsaved sign change before its storage is checkpointed.
+     * @param saveMaxDelaySeconds The maximum delay in seconds
+     */
+    public void setSaveMaxDelaySeconds(int saveMaxDelaySeconds) {
+        this.saveMaxDelaySeconds = saveMaxDelaySeconds;
+    }
+    
+    /**
+     * Get how worlds keep their signs.
+     * @return "Regions" for region files paged in with their chunks, "Mapped" for a memory-mapped table of every sign,
+     *         "Sql" for an embedded SQLite database
+     */
+    public String getStorageEngine() {
+        return storageEngine;
+    }
+    
+    /**
+     * Set how worlds keep their signs. Takes effect on the next start; existing data is migrated as worlds load.
+     * @param storageEngine "Regions", "Mapped" or "Sql"
+     */
+    public void setStorageEngine(String storageEngine) {
+        this.storageEngine = storageEngine;
+    }
+    
+    /**
+     * Get whether each world's signs are exported to JSON when the world unloads.
+     * @return true if worlds are exported to {@code export/<world>.json}
+     */
+    public boolean isExportJson() {
+        return exportJson;
+    }
+    
+    /**
+     * Set whether each world's signs are exported to JSON when the world unloads.
+     * @param exportJson true to export worlds to {@code export/<world>.json}
+     */
+    public void setExportJson(boolean exportJson) {
+        this.exportJson = exportJson;
+    }
+    
+    /**
+     * Get the JSON file, relative to the plugin's data folder, whose signs are imported on the next start.
+     * @return The file name, or an empty string if nothing is imported
+     */
+    public String getImportJson() {
+        return importJson;
+    }
+    
+    /**
+     * Set the JSON file, relative to the plugin's data folder, whose signs are imported on the next start.
+     * The file is renamed to {@code *.imported} once it was imported.
+     * @param importJson The file name, or an empty string to import nothing
+     */
+    public void setImportJson(String importJson) {
+        this.importJson = importJson;
+    }
 }
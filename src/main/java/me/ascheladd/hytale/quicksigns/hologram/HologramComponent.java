@@ -0,0 +1,52 @@
+package me.ascheladd.hytale.quicksigns.hologram;
+
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+import com.hypixel.hytale.component.Component;
+import com.hypixel.hytale.component.ComponentType;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Marker component of sign hologram entities.
+ *
+ * Holograms carry only this marker plus transform, network ID, nameplate and UUID, so no
+ * movement, physics or projectile system matches their archetype and they cost nothing per tick.
+ * The marker also lets holograms be recognized in queries. Holograms are spawned non-serialized,
+ * so the codec only matters for holograms written into world saves by earlier versions.
+ */
+public class HologramComponent implements Component<EntityStore> {
+
+    /**
+     * Codec for serializing/deserializing HologramComponent. The marker has no fields.
+     */
+    public static final BuilderCodec<HologramComponent> CODEC =
+        BuilderCodec.builder(HologramComponent.class, HologramComponent::new).build();
+
+    private static ComponentType<EntityStore, HologramComponent> componentType;
+
+    /**
+     * Creates a new hologram marker.
+     */
+    public HologramComponent() {
+    }
+
+    /**
+     * Gets the registered component type.
+     * @return The component type, or null before {@link #setComponentType(ComponentType)} was called
+     */
+    public static ComponentType<EntityStore, HologramComponent> getComponentType() {
+        return componentType;
+    }
+
+    /**
+     * Sets the component type returned by the entity store registry on plugin setup.
+     * @param type The registered component type
+     */
+    public static void setComponentType(ComponentType<EntityStore, HologramComponent> type) {
+        componentType = type;
+    }
+
+    @Override
+    public Component<EntityStore> clone() {
+        return new HologramComponent();
+    }
+}
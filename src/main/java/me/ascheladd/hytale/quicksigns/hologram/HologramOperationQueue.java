@@ -0,0 +1,908 @@
+package me.ascheladd.hytale.quicksigns.hologram;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import me.ascheladd.hytale.quicksigns.QuickSigns;
+import me.ascheladd.hytale.quicksigns.storage.LongObjectMap;
+import me.ascheladd.hytale.quicksigns.storage.SignStorage;
+import me.ascheladd.hytale.quicksigns.storage.SignLocation;
+import me.ascheladd.hytale.quicksigns.storage.SignRecord;
+import me.ascheladd.hytale.quicksigns.util.HologramUtil;
+import me.ascheladd.hytale.quicksigns.util.SignUtil;
+
+/**
+ * Queue of pending hologram spawn and remove operations for one world.
+ *
+ * Any thread may enqueue; the world thread drains. At most one drain task is scheduled with
+ * {@code world.execute} at a time, so every operation queued before the next tick is applied by a
+ * single task, no matter how many signs a player builds or demolishes in between.
+ * Operations on the same sign are merged before they are applied:
+ * repeated removals or checks run once, and only the latest text is shown.
+ * Drains apply merged operations only until the per-tick hologram budget is used up, which all drains of a
+ * tick share, and carry the rest over to the next tick; once it is spent, later drains of the tick only merge.
+ * Ticks are started on the world thread by {@link HologramTickSystem}, the only thread that touches the budget.
+ * Operations wait in one lane per player, plus one for operations no player asked for, such as rebuilding the
+ * holograms of loaded chunks, and the lanes take turns, so one player spamming sign edits cannot starve the others.
+ * Broken blocks are collected the same way and turned into operations as one batch per drain.
+ *
+ * Signs can vanish without an event of their own: a wall sign pops off when its support breaks. The server
+ * offers no block-change event besides breaks, so a break marks the chunk columns its attached signs can be
+ * in as changed, and on the next tick, once physics had a tick to drop them, every tracked sign in those
+ * chunks is checked once, however many blocks broke there. A sign found gone marks its own chunks in turn,
+ * so a cascade is followed one tick per step. Signs removed where no event fires at all, or dropped later
+ * than that, are left to the {@link HologramReconciler}.
+ */
+public class HologramOperationQueue {
+
+    private static final byte REMOVE = 0;
+    private static final byte VERIFY = 1;
+    private static final byte SPAWN = 2;
+    private static final byte SHOW = 3;
+
+    /**
+     * Vertical spacing between stacked hologram lines.
+     */
+    private static final double LINE_SPACING = 0.25;
+
+    private final World world;
+    private final String worldId;
+    private final SignStorage signHologramStorage;
+    private final ConcurrentLinkedQueue<Operation> queue = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> loadedChunks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final HologramRefCache refCache = new HologramRefCache();
+    private final HologramVisibility visibility;
+    private final AtomicBoolean visibilityScheduled = new AtomicBoolean(false);
+    private final HologramReconciler reconciler;
+    private final AtomicBoolean reconcileScheduled = new AtomicBoolean(false);
+
+    // Blocks broken since the last drain by location, TRUE if the block was a sign; guarded by brokenLock
+    private final Object brokenLock = new Object();
+    private LongObjectMap<Boolean> brokenBlocks = new LongObjectMap<>();
+
+    // Chunk columns changed in changedTick, whose signs the first drain of a later tick checks; only touched by the world thread
+    private LongObjectMap<Boolean> changedChunks = new LongObjectMap<>();
+    private long changedTick;
+
+    // Ticks started by tick() and the budget all drains of the current one used; only touched by the world thread
+    private long tick;
+    private long tickUsedNanos;
+    private int tickApplied;
+    private boolean budgetSpent;
+    // Player positions read for the current drain, for signs of loaded chunks; null if unreadable
+    private List<Vector3d> drainPlayers;
+    private boolean drainPlayersRead;
+
+    // Merged operations not yet applied, by location and by lane; only touched by the draining world thread
+    private final LongObjectMap<PendingSign> merged = new LongObjectMap<>();
+    private final Map<UUID, Lane> lanes = new HashMap<>();
+    private final ArrayDeque<Lane> laneTurns = new ArrayDeque<>();
+    // Merged entries created so far, and how many of them were already counted as deferred or applied
+    private long createdSigns;
+    private long countedSigns;
+
+    private final AtomicInteger queuedOperations = new AtomicInteger();
+    private volatile int carriedOver;
+    private volatile long deferredOperations;
+    private volatile long budgetLimitedDrains;
+
+    /**
+     * Creates the queue of a world.
+     * @param world The world whose thread applies the operations
+     * @param signHologramStorage The sign hologram storage instance
+     */
+    HologramOperationQueue(World world, SignStorage signHologramStorage) {
+        this.world = world;
+        this.worldId = world.getName();
+        this.signHologramStorage = signHologramStorage;
+        this.visibility = new HologramVisibility(world, this, signHologramStorage);
+        this.reconciler = new HologramReconciler(world, this, visibility, signHologramStorage);
+    }
+
+    /**
+     * Queues the removal of all holograms of a sign.
+     * @param x Sign X coordinate
+     * @param y Sign Y coordinate
+     * @param z Sign Z coordinate
+     */
+    public void remove(int x, int y, int z) {
+        enqueue(new Operation(REMOVE, x, y, z, null, 0, 0, null));
+    }
+
+    /**
+     * Queues a check that a tracked sign still exists; its holograms are removed if it does not.
+     * Checks run on the next drain, after physics has processed the current tick.
+     * @param x Sign X coordinate
+     * @param y Sign Y coordinate
+     * @param z Sign Z coordinate
+     */
+    public void verify(int x, int y, int z) {
+        enqueue(new Operation(VERIFY, x, y, z, null, 0, 0, null));
+    }
+
+    /**
+     * Records a broken block for the next drain, which removes the holograms of a broken sign and marks
+     * the block's chunk columns as changed, so their tracked signs are checked on the next tick.
+     * Breaking the same block again before then is merged.
+     * @param x Block X coordinate
+     * @param y Block Y coordinate
+     * @param z Block Z coordinate
+     * @param sign true if the broken block was a sign
+     */
+    public void blockBroken(int x, int y, int z, boolean sign) {
+        long location = SignLocation.pack(x, y, z);
+        synchronized (brokenLock) {
+            if (sign) {
+                brokenBlocks.put(location, Boolean.TRUE);
+            } else if (!brokenBlocks.containsKey(location)) {
+                brokenBlocks.put(location, Boolean.FALSE);
+            }
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Queues showing the given lines on a sign, facing the player. Existing holograms on the same side
+     * are updated in place; otherwise they are replaced.
+     * @param x Sign X coordinate
+     * @param y Sign Y coordinate
+     * @param z Sign Z coordinate
+     * @param lines The text lines, top to bottom
+     * @param playerX Player X coordinate
+     * @param playerZ Player Z coordinate
+     * @param playerId The UUID of the player editing the sign, whose lane the operation waits in
+     */
+    public void spawn(int x, int y, int z, List<String> lines, double playerX, double playerZ, UUID playerId) {
+        enqueue(new Operation(SPAWN, x, y, z, List.copyOf(lines), playerX, playerZ, playerId));
+    }
+
+    /**
+     * Queues spawning the holograms of a chunk column that is being loaded, for signs in view.
+     * Holograms are not saved with the world, so they are rebuilt from the stored text this way,
+     * one sign at a time within the hologram budget.
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     */
+    public void chunkLoaded(int chunkX, int chunkZ) {
+        loadedChunks.add(SignLocation.chunkKey(chunkX, chunkZ));
+        scheduleDrain();
+    }
+
+    /**
+     * Drops the cached entity references of a chunk column whose entities are being unloaded.
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     */
+    public void invalidateChunk(int chunkX, int chunkZ) {
+        refCache.invalidateChunk(chunkX, chunkZ);
+        visibility.invalidateChunk(chunkX, chunkZ);
+    }
+
+    /**
+     * Schedules a visibility pass on the world thread, unless one is already pending.
+     * Holograms out of every player's view are despawned and those coming into view are rebuilt.
+     */
+    public void requestVisibilityPass() {
+        if (visibilityScheduled.compareAndSet(false, true)) {
+            try {
+                world.execute(() -> {
+                    visibilityScheduled.set(false);
+                    visibility.update();
+                });
+            } catch (Exception e) {
+                visibilityScheduled.set(false);
+                QuickSigns.debug("Could not schedule hologram visibility pass for world " + worldId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Schedules a reconciliation slice on the world thread if a sweep is in progress or due,
+     * unless one is already pending.
+     * @param budgetNanos Time the slice may take
+     */
+    public void requestReconcileSlice(long budgetNanos) {
+        if (reconciler.isDue() && reconcileScheduled.compareAndSet(false, true)) {
+            try {
+                world.execute(() -> {
+                    reconcileScheduled.set(false);
+                    reconciler.slice(budgetNanos);
+                });
+            } catch (Exception e) {
+                reconcileScheduled.set(false);
+                QuickSigns.debug("Could not schedule hologram reconciliation for world " + worldId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Starts a new tick with a fresh hologram budget, and schedules a drain if operations were carried over
+     * from an earlier tick or chunks changed. Called on the world thread once per server tick, by
+     * {@link HologramTickSystem}.
+     */
+    void tick() {
+        tick++;
+        tickUsedNanos = 0;
+        tickApplied = 0;
+        budgetSpent = false;
+        if (carriedOver > 0 || !changedChunks.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Gets the number of operations waiting: queued since the last drain, or merged and carried over.
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return queuedOperations.get() + carriedOver;
+    }
+
+    /**
+     * Gets how many merged operations were carried over to a later tick because the budget was used up.
+     * Each is counted once, however many ticks it waits.
+     * @return The deferral count since startup
+     */
+    public long getDeferredOperationCount() {
+        return deferredOperations;
+    }
+
+    /**
+     * Gets the number of ticks whose budget was used up before every operation was applied.
+     * @return The budget-limited tick count since startup
+     */
+    public long getBudgetLimitedDrainCount() {
+        return budgetLimitedDrains;
+    }
+
+    /**
+     * Gets the reconciler of this world, for its statistics.
+     * @return The reconciler
+     */
+    HologramReconciler getReconciler() {
+        return reconciler;
+    }
+
+    /**
+     * Gets the number of signs whose holograms are currently despawned for being out of view.
+     * @return The culled sign count
+     */
+    public int getCulledSignCount() {
+        return visibility.getCulledCount();
+    }
+
+    private void enqueue(Operation operation) {
+        queuedOperations.incrementAndGet();
+        queue.add(operation);
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                world.execute(this::drain);
+            } catch (Exception e) {
+                drainScheduled.set(false);
+                QuickSigns.logger().atSevere().log("Failed to schedule hologram operations for world " + worldId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Merges every queued operation and applies as many as the budget allows. Runs on the world thread.
+     */
+    private void drain() {
+        // Clear the flag first so operations queued while draining schedule the next drain
+        drainScheduled.set(false);
+        drainPlayers = null;
+        drainPlayersRead = false;
+
+        // Chunks changed in earlier ticks first, so the breaks collected below wait for the next tick
+        int polled = checkChangedChunks();
+        Operation operation;
+        while ((operation = queue.poll()) != null) {
+            queuedOperations.decrementAndGet();
+            polled++;
+            pendingAt(SignLocation.pack(operation.x, operation.y, operation.z), operation.playerId).merge(operation);
+        }
+        polled += collectBrokenBlocks();
+        polled += collectLoadedChunks();
+
+        if (polled > merged.size()) {
+            QuickSigns.debug("Merged " + polled + " hologram operations into " + merged.size() + " for world " + worldId);
+        }
+
+        applyWithinBudget();
+    }
+
+    /**
+     * Applies merged operations, one from each lane in turn, until the time or operation budget of the
+     * current tick is used up, counting what earlier drains of the tick used; at least one is applied per
+     * tick. Once the budget is spent, drains of the same tick only merge. The rest stay merged for the next
+     * tick, keeping their place in their lane, and later operations on the same signs merge into them.
+     */
+    private void applyWithinBudget() {
+        long budgetNanos = QuickSigns.getHologramBudgetMicros() * 1000L;
+        int budgetOperations = QuickSigns.getHologramBudgetOperations();
+        long start = System.nanoTime();
+        int applied = 0;
+        int appliedUncounted = 0;
+        Lane lane;
+        while (!budgetSpent && (lane = laneTurns.poll()) != null) {
+            if (tickApplied > 0 && (budgetOperations > 0 && tickApplied >= budgetOperations
+                    || budgetNanos > 0 && tickUsedNanos + System.nanoTime() - start >= budgetNanos)) {
+                laneTurns.addFirst(lane);
+                budgetSpent = true;
+                budgetLimitedDrains++;
+                break;
+            }
+            PendingSign sign = lane.signs.poll();
+            if (lane.signs.isEmpty()) {
+                lanes.remove(lane.playerId);
+            } else {
+                laneTurns.add(lane);
+            }
+            merged.remove(SignLocation.pack(sign.x, sign.y, sign.z));
+            applied++;
+            tickApplied++;
+            if (sign.sequence > countedSigns) {
+                appliedUncounted++;
+            }
+            try {
+                apply(sign);
+            } catch (Exception e) {
+                QuickSigns.logger().atSevere().withCause(e).log("Failed to apply hologram operation " + sign.describe()
+                    + " at " + worldId + ":" + sign.x + ":" + sign.y + ":" + sign.z);
+            }
+        }
+
+        tickUsedNanos += System.nanoTime() - start;
+
+        // Entries created since the last drain that are still merged are carried over for the first time
+        int remaining = merged.size();
+        carriedOver = remaining;
+        long newlyDeferred = createdSigns - countedSigns - appliedUncounted;
+        countedSigns = createdSigns;
+        if (newlyDeferred > 0) {
+            deferredOperations += newlyDeferred;
+        }
+        if (remaining > 0) {
+            QuickSigns.debug("Applied " + applied + " hologram operations in world " + worldId + ", carrying "
+                + remaining + " over to the next tick");
+        }
+    }
+
+    /**
+     * Turns the blocks broken since the last drain into a removal for each broken sign, and marks the chunk
+     * columns of every broken block as changed. Marking costs the same however many blocks break in a chunk,
+     * so explosions and mass edits cause one check per sign rather than probes per block.
+     * @return The number of broken blocks
+     */
+    private int collectBrokenBlocks() {
+        LongObjectMap<Boolean> broken;
+        synchronized (brokenLock) {
+            if (brokenBlocks.isEmpty()) {
+                return 0;
+            }
+            broken = brokenBlocks;
+            brokenBlocks = new LongObjectMap<>();
+        }
+
+        broken.forEach((location, sign) -> {
+            if (sign) {
+                pendingAt(location, null).merge(REMOVE);
+            }
+            markChanged(SignLocation.unpackX(location), SignLocation.unpackZ(location));
+        });
+        return broken.size();
+    }
+
+    /**
+     * Turns the chunk columns loaded since the last drain into a check of each tracked sign in them,
+     * which spawns its holograms if it is in view. The checks wait in the lane of no player.
+     * @return The number of signs in the loaded chunks
+     */
+    private int collectLoadedChunks() {
+        int signs = 0;
+        Long chunkKey;
+        while ((chunkKey = loadedChunks.poll()) != null) {
+            for (long location : signHologramStorage.getSignsInChunk(worldId,
+                    SignLocation.chunkKeyX(chunkKey), SignLocation.chunkKeyZ(chunkKey))) {
+                pendingAt(location, null).merge(SHOW);
+                signs++;
+            }
+        }
+        return signs;
+    }
+
+    /**
+     * Marks the chunk columns whose signs may rest on a block as changed: the block's own, and those of its
+     * horizontal neighbours, where signs hanging on its sides can be.
+     */
+    private void markChanged(int x, int z) {
+        changedChunks.put(SignLocation.chunkKeyOf(x, z), Boolean.TRUE);
+        for (int[] offset : SignLocation.ADJACENT_OFFSETS) {
+            changedChunks.put(SignLocation.chunkKeyOf(x + offset[0], z + offset[1]), Boolean.TRUE);
+        }
+        changedTick = tick;
+    }
+
+    /**
+     * Queues one check of every tracked sign in the chunk columns changed during an earlier tick, looked up
+     * in the storage index. Chunks changed during the current tick wait for the next one.
+     * @return The number of signs queued for a check
+     */
+    private int checkChangedChunks() {
+        if (changedChunks.isEmpty() || changedTick == tick) {
+            return 0;
+        }
+        long[] chunkKeys = changedChunks.keys();
+        changedChunks = new LongObjectMap<>();
+        int signs = 0;
+        for (long chunkKey : chunkKeys) {
+            for (long location : signHologramStorage.getSignsInChunk(worldId,
+                    SignLocation.chunkKeyX(chunkKey), SignLocation.chunkKeyZ(chunkKey))) {
+                pendingAt(location, null).merge(VERIFY);
+                signs++;
+            }
+        }
+        QuickSigns.debug("Checking " + signs + " signs of " + chunkKeys.length + " changed chunks in world " + worldId);
+        return signs;
+    }
+
+    /**
+     * Gets the merged operations of a sign that are not yet applied, adding an empty entry if there is none.
+     * A new entry joins the end of the lane of the player it is for; an existing one keeps its place.
+     * @param location The packed sign location
+     * @param playerId The player the operation is for, or null for operations no player asked for
+     */
+    private PendingSign pendingAt(long location, UUID playerId) {
+        PendingSign sign = merged.get(location);
+        if (sign == null) {
+            sign = new PendingSign(SignLocation.unpackX(location), SignLocation.unpackY(location), SignLocation.unpackZ(location),
+                ++createdSigns);
+            merged.put(location, sign);
+            Lane lane = lanes.get(playerId);
+            if (lane == null) {
+                lane = new Lane(playerId);
+                lanes.put(playerId, lane);
+                laneTurns.add(lane);
+            }
+            lane.signs.add(sign);
+        }
+        return sign;
+    }
+
+    private void apply(PendingSign sign) {
+        if (sign.show) {
+            // Rebuild the holograms of a loaded chunk first, so the operations below find them
+            if (!drainPlayersRead) {
+                drainPlayers = visibility.playerPositions();
+                drainPlayersRead = true;
+            }
+            visibility.updateLoaded(SignLocation.pack(sign.x, sign.y, sign.z), drainPlayers);
+        }
+        if (sign.remove) {
+            deleteSignHolograms(sign.x, sign.y, sign.z);
+        }
+        if (sign.lines != null && !updateSignHolograms(sign)) {
+            deleteSignHolograms(sign.x, sign.y, sign.z);
+            spawnSignHolograms(sign);
+        }
+        if (sign.verify) {
+            verifySign(sign.x, sign.y, sign.z);
+        }
+    }
+
+    /**
+     * Removes a tracked sign's holograms if the block is no longer a sign, and marks its chunk columns as changed
+     * so the signs attached to it are checked on the next tick.
+     * A block that cannot be read is left alone: the sign stays stored and is checked again by a later pass
+     * or reconciliation sweep.
+     */
+    private void verifySign(int x, int y, int z) {
+        Boolean isSign = SignUtil.isSignAt(world, x, y, z);
+        if (isSign == null) {
+            QuickSigns.debug("Could not read block at " + x + "," + y + "," + z + ", checking the sign again later");
+        } else if (!isSign) {
+            QuickSigns.debug("Detected missing sign at " + x + "," + y + "," + z + " (a block it rested on was broken)");
+            deleteSignHolograms(x, y, z);
+            // Signs hanging on or standing on this one may follow it in the cascade
+            markChanged(x, z);
+        } else {
+            QuickSigns.debug("Sign at " + x + "," + y + "," + z + " still exists, not cleaning up");
+        }
+    }
+
+    /**
+     * Deletes all sign text holograms at the specified location, along with the stored sign.
+     * @param x Sign X coordinate
+     * @param y Sign Y coordinate
+     * @param z Sign Z coordinate
+     */
+    void deleteSignHolograms(int x, int y, int z) {
+        List<UUID> uuids = signHologramStorage.removeSignHolograms(worldId, x, y, z);
+        long location = SignLocation.pack(x, y, z);
+        visibility.forget(location);
+
+        if (uuids == null || uuids.isEmpty()) {
+            QuickSigns.debug("No sign holograms found in storage at " + worldId + ":" + x + ":" + y + ":" + z);
+            return;
+        }
+
+        QuickSigns.debug("Deleting " + uuids.size() + " sign text holograms at " + worldId + ":" + x + ":" + y + ":" + z);
+        despawn(location, uuids);
+    }
+
+    /**
+     * Removes a sign's hologram entities, leaving its record in storage untouched.
+     * @param location The packed sign location
+     * @param uuids The UUIDs of the sign's holograms
+     */
+    void despawn(long location, List<UUID> uuids) {
+        HologramRefCache.CachedSign cached = refCache.remove(location);
+        for (UUID uuid : uuids) {
+            removeHologram(cached, uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        }
+    }
+
+    /**
+     * Removes the hologram entities a sign's record lists, leaving the record in storage untouched.
+     * @param location The packed sign location
+     * @param record The sign's record
+     */
+    void despawn(long location, SignRecord record) {
+        HologramRefCache.CachedSign cached = refCache.remove(location);
+        record.forEachHologram((msb, lsb) -> removeHologram(cached, msb, lsb));
+    }
+
+    /**
+     * Removes one hologram entity, if it still exists.
+     */
+    private void removeHologram(HologramRefCache.CachedSign cached, long msb, long lsb) {
+        try {
+            Ref<EntityStore> hologramRef = findHologram(cached, msb, lsb);
+            if (hologramRef == null) {
+                QuickSigns.debug("Hologram UUID " + new UUID(msb, lsb) + " not found or invalid, skipping");
+                return;
+            }
+
+            Holder<EntityStore> holder = EntityStore.REGISTRY.newHolder();
+            world.getEntityStore().getStore().removeEntity(hologramRef, holder, RemoveReason.REMOVE);
+            QuickSigns.debug("✓ Successfully deleted hologram with UUID: " + new UUID(msb, lsb));
+        } catch (Exception e) {
+            QuickSigns.logger().atSevere().withCause(e).log("Failed to delete hologram UUID " + new UUID(msb, lsb));
+        }
+    }
+
+    /**
+     * Checks whether every hologram entity a sign's record lists exists. Allocates nothing while
+     * the holograms are in the ref cache.
+     * @param location The packed sign location
+     * @param record The sign's record
+     * @return true if all of them were found
+     */
+    boolean isSpawned(long location, SignRecord record) {
+        HologramRefCache.CachedSign cached = refCache.get(location);
+        for (int i = 0; i < record.getHologramCount(); i++) {
+            if (findHologram(cached, record.msbAt(i), record.lsbAt(i)) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolves a hologram entity through the ref cache, or by UUID if it is not cached; the UUID
+     * object is only built for that fallback.
+     */
+    private Ref<EntityStore> findHologram(HologramRefCache.CachedSign cached, long msb, long lsb) {
+        Ref<EntityStore> hologramRef = cached != null ? cached.refFor(msb, lsb) : null;
+        if (hologramRef == null) {
+            // Not spawned since startup or its chunk was unloaded since: fall back to a UUID lookup
+            // Note: getRefFromUUID is a method on EntityStore, not Store<EntityStore>
+            hologramRef = world.getEntityStore().getRefFromUUID(new UUID(msb, lsb));
+        }
+        return hologramRef != null && hologramRef.isValid() ? hologramRef : null;
+    }
+
+    /**
+     * Creates the sign's holograms facing the player and stores the sign with its text.
+     */
+    private void spawnSignHolograms(PendingSign sign) {
+        byte facing = HologramUtil.facingToward(sign.x, sign.z, sign.playerX, sign.playerZ);
+        SignRecord text = new SignRecord(List.of(), sign.lines, facing);
+        List<UUID> uuids = materialize(sign.x, sign.y, sign.z, text);
+        if (uuids.isEmpty()) {
+            return;
+        }
+
+        // Persist the sign with its text and hologram UUIDs for deletion when sign is broken
+        signHologramStorage.putSign(worldId, sign.x, sign.y, sign.z, new SignRecord(uuids, sign.lines, facing));
+        visibility.markSpawned(SignLocation.pack(sign.x, sign.y, sign.z));
+        QuickSigns.debug("Persisted sign hologram mapping: " + worldId + ":" + sign.x + ":" + sign.y + ":" + sign.z + " -> UUIDs:" + uuids);
+    }
+
+    /**
+     * Shows a sign's new text on its existing holograms, changing only the nameplates of lines that differ.
+     * Entities are spawned or removed only when the number of lines changes in one-entity-per-line mode,
+     * and the record is rewritten only when the text or the UUIDs changed.
+     * Returns false when the holograms cannot be updated in place and must be rebuilt instead: the sign has no
+     * stored text, the text moves to another side, the layout changed, or an entity is missing.
+     */
+    private boolean updateSignHolograms(PendingSign sign) {
+        SignRecord record = signHologramStorage.getSign(worldId, sign.x, sign.y, sign.z);
+        if (record == null || !record.hasText()) {
+            return false;
+        }
+        byte facing = HologramUtil.facingToward(sign.x, sign.z, sign.playerX, sign.playerZ);
+        if (facing != record.getFacing()) {
+            return false;
+        }
+
+        long location = SignLocation.pack(sign.x, sign.y, sign.z);
+        List<String> oldLines = record.getLines();
+        boolean singleEntity = QuickSigns.isSingleEntityHolograms();
+        if (record.getHologramCount() != (singleEntity ? 1 : oldLines.size())) {
+            return false;
+        }
+        List<UUID> oldUuids = record.getHologramIds();
+
+        if (visibility.isCulled(location)) {
+            // Nothing is spawned; the new text is shown when the sign comes into view
+            storeText(sign, record, oldUuids, facing);
+            return true;
+        }
+
+        List<Ref<EntityStore>> refs = new ArrayList<>(oldUuids.size());
+        HologramRefCache.CachedSign cached = refCache.get(location);
+        for (int i = 0; i < record.getHologramCount(); i++) {
+            Ref<EntityStore> ref = findHologram(cached, record.msbAt(i), record.lsbAt(i));
+            if (ref == null) {
+                return false;
+            }
+            refs.add(ref);
+        }
+
+        List<UUID> uuids = new ArrayList<>(oldUuids);
+        if (singleEntity) {
+            if (!sign.lines.equals(oldLines)
+                && !HologramUtil.setLines(world, refs.get(0), sign.lines)) {
+                return false;
+            }
+        } else {
+            int oldCount = oldLines.size();
+            int newCount = sign.lines.size();
+            for (int i = 0; i < Math.min(oldCount, newCount); i++) {
+                if (!sign.lines.get(i).equals(oldLines.get(i))
+                    && !HologramUtil.setText(world, refs.get(i), sign.lines.get(i))) {
+                    return false;
+                }
+                // The stack is centered on the sign, so every kept line moves when the count changes
+                if (oldCount != newCount) {
+                    HologramUtil.moveHologram(world, refs.get(i), sign.x, lineY(sign.y, newCount, i), sign.z, facing);
+                }
+            }
+            for (int i = newCount; i < oldCount; i++) {
+                world.getEntityStore().getStore().removeEntity(refs.get(i), EntityStore.REGISTRY.newHolder(), RemoveReason.REMOVE);
+            }
+            for (int i = oldCount; i < newCount; i++) {
+                HologramUtil.HologramResult result = HologramUtil.createHologram(world, sign.x, lineY(sign.y, newCount, i), sign.z,
+                    facing, sign.lines.get(i), UUID.randomUUID());
+                if (result == null) {
+                    QuickSigns.logger().atSevere().log("Failed to create sign hologram line " + (i + 1) + ": " + sign.lines.get(i));
+                    continue;
+                }
+                refs.add(result.entityRef);
+                uuids.add(result.entityUuid);
+            }
+            if (newCount < oldCount) {
+                refs.subList(newCount, oldCount).clear();
+                uuids.subList(newCount, oldCount).clear();
+            }
+        }
+
+        refCache.remove(location);
+        for (int i = 0; i < uuids.size(); i++) {
+            refCache.add(location, uuids.get(i), refs.get(i));
+        }
+        storeText(sign, record, uuids, facing);
+        QuickSigns.debug("Updated sign holograms in place at " + worldId + ":" + sign.x + ":" + sign.y + ":" + sign.z + " -> UUIDs:" + uuids);
+        return true;
+    }
+
+    /**
+     * Stores a sign's new text and UUIDs, unless nothing changed.
+     */
+    private void storeText(PendingSign sign, SignRecord record, List<UUID> uuids, byte facing) {
+        if (record.hasHolograms(uuids) && sign.lines.equals(record.getLines())) {
+            return;
+        }
+        signHologramStorage.putSign(worldId, sign.x, sign.y, sign.z, new SignRecord(uuids, sign.lines, facing));
+    }
+
+    /**
+     * Gets the height of one line of a stacked sign hologram, centering the stack on the sign.
+     * More lines means a lower starting position so all lines fit on the sign.
+     * @param signY Sign Y coordinate
+     * @param lineCount The number of lines
+     * @param index The line index, top to bottom
+     * @return The line's Y coordinate
+     */
+    private static double lineY(double signY, int lineCount, int index) {
+        // Formula: y + ((size - 1 - index) - (size - 1) / 2) * spacing
+        return signY + ((lineCount - 1 - index) - (lineCount - 1) / 2.0) * LINE_SPACING;
+    }
+
+    /**
+     * Spawns a sign's holograms from its text: a single multi-line entity, or one stacked entity per line
+     * when single-entity holograms are disabled. The record's UUIDs are reused when their number fits the
+     * layout, so rebuilding a sign's holograms does not touch storage; otherwise new UUIDs are created.
+     * Signs written with the other layout are converted this way, since their old entities are removed first.
+     * @param x Sign X coordinate
+     * @param y Sign Y coordinate
+     * @param z Sign Z coordinate
+     * @param record The sign's record; must have text
+     * @return The UUIDs of the spawned holograms, empty if none could be created
+     */
+    List<UUID> materialize(int x, int y, int z, SignRecord record) {
+        List<String> lines = record.getLines();
+        int entities = QuickSigns.isSingleEntityHolograms() ? 1 : lines.size();
+        boolean reuse = record.getHologramCount() == entities;
+        List<UUID> uuids = new ArrayList<>(entities);
+        long location = SignLocation.pack(x, y, z);
+
+        for (int i = 0; i < entities; i++) {
+            UUID uuid = reuse ? record.getHologramId(i) : UUID.randomUUID();
+            HologramUtil.HologramResult result;
+            String description;
+            if (QuickSigns.isSingleEntityHolograms()) {
+                result = HologramUtil.createMultiLineHologram(world, x, y, z, record.getFacing(), lines, uuid);
+                description = lines.size() + " line sign hologram";
+            } else {
+                result = HologramUtil.createHologram(world, x, lineY(y, lines.size(), i), z, record.getFacing(), lines.get(i), uuid);
+                description = "sign hologram line " + (i + 1) + ": " + lines.get(i);
+            }
+
+            if (result == null) {
+                QuickSigns.logger().atSevere().log("Failed to create " + description);
+                continue;
+            }
+            refCache.add(location, result.entityUuid, result.entityRef);
+            uuids.add(result.entityUuid);
+            QuickSigns.debug("Created " + description);
+        }
+        return uuids;
+    }
+
+    /**
+     * A queued operation.
+     */
+    private static final class Operation {
+        final byte kind;
+        final int x;
+        final int y;
+        final int z;
+        final List<String> lines;
+        final double playerX;
+        final double playerZ;
+        final UUID playerId;
+
+        Operation(byte kind, int x, int y, int z, List<String> lines, double playerX, double playerZ, UUID playerId) {
+            this.kind = kind;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.lines = lines;
+            this.playerX = playerX;
+            this.playerZ = playerZ;
+            this.playerId = playerId;
+        }
+    }
+
+    /**
+     * The operations of one player, or of no player, waiting to be applied, oldest first.
+     */
+    private static final class Lane {
+        final UUID playerId;
+        final ArrayDeque<PendingSign> signs = new ArrayDeque<>();
+
+        Lane(UUID playerId) {
+            this.playerId = playerId;
+        }
+    }
+
+    /**
+     * The merged operations on one sign until they are applied, as show, remove, spawn, then verify.
+     */
+    private static final class PendingSign {
+        final int x;
+        final int y;
+        final int z;
+        // Creation order, so each entry is counted once when it is deferred
+        final long sequence;
+        boolean show;
+        boolean remove;
+        boolean verify;
+        List<String> lines;
+        double playerX;
+        double playerZ;
+
+        PendingSign(int x, int y, int z, long sequence) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Names the merged operations, for logging.
+         */
+        String describe() {
+            StringJoiner operations = new StringJoiner("+");
+            if (show) {
+                operations.add("show");
+            }
+            if (remove) {
+                operations.add("remove");
+            }
+            if (lines != null) {
+                operations.add("spawn");
+            }
+            if (verify) {
+                operations.add("verify");
+            }
+            return operations.toString();
+        }
+
+        void merge(Operation operation) {
+            switch (operation.kind) {
+                case SPAWN -> {
+                    // Spawning replaces whatever is there, so earlier removals are implied
+                    show = false;
+                    remove = false;
+                    verify = false;
+                    lines = operation.lines;
+                    playerX = operation.playerX;
+                    playerZ = operation.playerZ;
+                }
+                default -> merge(operation.kind);
+            }
+        }
+
+        void merge(byte kind) {
+            switch (kind) {
+                case REMOVE -> {
+                    // Drops any text queued before the sign was removed
+                    show = false;
+                    remove = true;
+                    lines = null;
+                    verify = false;
+                }
+                case SHOW -> {
+                    // A queued removal or new text replaces the holograms anyway
+                    if (!remove && lines == null) {
+                        show = true;
+                    }
+                }
+                default -> verify = true;
+            }
+        }
+    }
+}
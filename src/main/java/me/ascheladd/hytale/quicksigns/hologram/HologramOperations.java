@@ -0,0 +1,211 @@
+package me.ascheladd.hytale.quicksigns.hologram;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import me.ascheladd.hytale.quicksigns.QuickSigns;
+import me.ascheladd.hytale.quicksigns.storage.SignStorage;
+
+/**
+ * Hands out the hologram operation queue of each world, starts each world's ticks from its
+ * {@link HologramTickSystem}, and periodically asks every world to despawn holograms that went out
+ * of view and rebuild those that came into view, and to reconcile its stored signs with its
+ * hologram entities a slice at a time.
+ */
+public class HologramOperations {
+
+    private static final long VISIBILITY_INTERVAL_MILLIS = 1000;
+    
+    /**
+     * How often a reconciliation slice is offered to each world, about once per server tick.
+     */
+    private static final long RECONCILE_SLICE_INTERVAL_MILLIS = 50;
+
+    private final SignStorage signHologramStorage;
+    private final ConcurrentHashMap<String, HologramOperationQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService visibilityExecutor;
+
+    /**
+     * Creates the queue registry and starts the visibility and reconciliation timers.
+     * @param signHologramStorage The sign hologram storage instance
+     */
+    public HologramOperations(SignStorage signHologramStorage) {
+        this.signHologramStorage = signHologramStorage;
+        this.visibilityExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "SignHolograms-Maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Only schedules a pass on each world thread; the pass itself runs there
+        visibilityExecutor.scheduleWithFixedDelay(this::requestVisibilityPasses,
+            VISIBILITY_INTERVAL_MILLIS, VISIBILITY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        visibilityExecutor.scheduleWithFixedDelay(this::requestReconcileSlices,
+            RECONCILE_SLICE_INTERVAL_MILLIS, RECONCILE_SLICE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the operation queue of a world, creating it on first use.
+     * @param world The world
+     * @return The world's queue
+     */
+    public HologramOperationQueue forWorld(World world) {
+        return queues.computeIfAbsent(world.getName(), name -> new HologramOperationQueue(world, signHologramStorage));
+    }
+
+    /**
+     * Starts a new tick in a world: a fresh hologram budget, and a drain if operations were carried over
+     * or chunks changed. Must be called on the world's thread.
+     * @param world The world
+     */
+    void tick(World world) {
+        HologramOperationQueue queue = queues.get(world.getName());
+        if (queue != null) {
+            queue.tick();
+        }
+    }
+
+    /**
+     * Spawns the holograms of a loading chunk column from the stored sign text, for signs in view.
+     * @param worldId The world ID
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     */
+    public void onChunkLoad(String worldId, int chunkX, int chunkZ) {
+        HologramOperationQueue queue = queues.get(worldId);
+        if (queue != null) {
+            queue.chunkLoaded(chunkX, chunkZ);
+        }
+    }
+
+    /**
+     * Drops the cached hologram references of an unloading chunk column.
+     * @param worldId The world ID
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     */
+    public void onChunkUnload(String worldId, int chunkX, int chunkZ) {
+        HologramOperationQueue queue = queues.get(worldId);
+        if (queue != null) {
+            queue.invalidateChunk(chunkX, chunkZ);
+        }
+    }
+
+    /**
+     * Gets the number of signs whose holograms are despawned for being out of view, across all worlds.
+     * @return The culled sign count
+     */
+    public int getCulledSignCount() {
+        int count = 0;
+        for (HologramOperationQueue queue : queues.values()) {
+            count += queue.getCulledSignCount();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of stored signs the reconciler removed because their block or holograms were gone, across all worlds.
+     * @return The dead sign count since startup
+     */
+    public long getReconciledDeadSignCount() {
+        long count = 0;
+        for (HologramOperationQueue queue : queues.values()) {
+            count += queue.getReconciler().getDeadMappingCount();
+        }
+        return count;
+    }
+    
+    /**
+     * Gets the number of signs whose missing holograms the reconciler rebuilt, across all worlds.
+     * @return The rebuilt sign count since startup
+     */
+    public long getReconciledRespawnCount() {
+        long count = 0;
+        for (HologramOperationQueue queue : queues.values()) {
+            count += queue.getReconciler().getRespawnedCount();
+        }
+        return count;
+    }
+    
+    /**
+     * Gets the number of orphan hologram entities the reconciler removed, across all worlds.
+     * @return The orphan count since startup
+     */
+    public long getReconciledOrphanCount() {
+        long count = 0;
+        for (HologramOperationQueue queue : queues.values()) {
+            count += queue.getReconciler().getOrphanCount();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of hologram operations waiting to be applied, across all worlds.
+     * @return The total queue depth
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (HologramOperationQueue queue : queues.values()) {
+            depth += queue.getQueueDepth();
+        }
+        return depth;
+    }
+
+    /**
+     * Gets how many times a hologram operation was carried over to a later tick, across all worlds.
+     * @return The deferral count since startup
+     */
+    public long getDeferredOperationCount() {
+        long count = 0;
+        for (HologramOperationQueue queue : queues.values()) {
+            count += queue.getDeferredOperationCount();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of ticks in which a world used up its hologram budget, across all worlds.
+     * @return The budget-limited drain count since startup
+     */
+    public long getBudgetLimitedDrainCount() {
+        long count = 0;
+        for (HologramOperationQueue queue : queues.values()) {
+            count += queue.getBudgetLimitedDrainCount();
+        }
+        return count;
+    }
+
+    /**
+     * Stops the visibility and reconciliation timers. Must be called on plugin shutdown.
+     */
+    public void shutdown() {
+        visibilityExecutor.shutdownNow();
+    }
+
+    private void requestVisibilityPasses() {
+        for (HologramOperationQueue queue : queues.values()) {
+            queue.requestVisibilityPass();
+        }
+    }
+
+    private void requestReconcileSlices() {
+        int budgetMicros = QuickSigns.getReconcileBudgetMicros();
+        if (budgetMicros <= 0) {
+            return; // Disabled
+        }
+        for (HologramOperationQueue queue : queues.values()) {
+            queue.requestReconcileSlice(budgetMicros * 1000L);
+        }
+    }
+
+    /**
+     * Forgets a removed world's queue. Operations still queued are dropped along with the world.
+     * @param worldId The world ID
+     */
+    public void removeWorld(String worldId) {
+        queues.remove(worldId);
+    }
+}
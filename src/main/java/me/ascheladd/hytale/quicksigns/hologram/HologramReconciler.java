@@ -0,0 +1,276 @@
+package me.ascheladd.hytale.quicksigns.hologram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.entity.UUIDComponent;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import me.ascheladd.hytale.quicksigns.QuickSigns;
+import me.ascheladd.hytale.quicksigns.storage.SignStorage;
+import me.ascheladd.hytale.quicksigns.storage.SignLocation;
+import me.ascheladd.hytale.quicksigns.storage.SignRecord;
+import me.ascheladd.hytale.quicksigns.util.SignUtil;
+
+/**
+ * Repairs drift between the stored signs of one world and its hologram entities, which builds up after
+ * crashes or when signs disappear without a block break event.
+ *
+ * A sweep first walks the stored signs of loaded chunks: signs whose block is no longer an editable sign are
+ * removed along with their holograms, and signs whose holograms went missing are rebuilt from their text
+ * (or dropped, if no text was stored). It then walks the hologram entities and removes those no stored sign
+ * owns. The sweep is done in slices on the world thread; a slice checks its deadline before every step, so it
+ * never starts work once the per-tick time budget is used, and progress is kept between slices. The entity chunks
+ * holding holograms are taken in one pass when the entity walk starts, and their entities are then checked one
+ * at a time; entities added to or moved between chunks during the sweep may be missed, and are caught by the next sweep.
+ */
+class HologramReconciler {
+
+    private static final byte IDLE = 0;
+    private static final byte SIGNS = 1;
+    private static final byte ENTITIES = 2;
+
+    private final World world;
+    private final String worldId;
+    private final HologramOperationQueue queue;
+    private final HologramVisibility visibility;
+    private final SignStorage signHologramStorage;
+
+    // Sweep progress, only changed on the world thread
+    private volatile byte phase = IDLE;
+    private long[] signs = new long[0];
+    private int signIndex;
+    private List<ArchetypeChunk<EntityStore>> entityChunks = new ArrayList<>();
+    private int entityChunkIndex;
+    private int entityIndex;
+    private int sweepDeadMappings;
+    private int sweepRespawned;
+    private int sweepOrphans;
+
+    private volatile long nextSweepNanos = System.nanoTime();
+    private volatile long deadMappings;
+    private volatile long respawned;
+    private volatile long orphans;
+
+    /**
+     * Creates the reconciler of a world.
+     * @param world The world
+     * @param queue The world's hologram operation queue, used to spawn and despawn entities
+     * @param visibility The world's visibility manager
+     * @param signHologramStorage The sign hologram storage instance
+     */
+    HologramReconciler(World world, HologramOperationQueue queue, HologramVisibility visibility,
+                       SignStorage signHologramStorage) {
+        this.world = world;
+        this.worldId = world.getName();
+        this.queue = queue;
+        this.visibility = visibility;
+        this.signHologramStorage = signHologramStorage;
+    }
+
+    /**
+     * Checks whether a slice has work to do: a sweep is in progress, or the next one is due.
+     * @return true if a slice should be scheduled
+     */
+    boolean isDue() {
+        return phase != IDLE || System.nanoTime() - nextSweepNanos >= 0;
+    }
+
+    /**
+     * Runs one slice of the current sweep, starting one if it is due. Runs on the world thread.
+     * @param budgetNanos Time after which the slice starts no further step
+     */
+    void slice(long budgetNanos) {
+        if (!isDue() || !signHologramStorage.isWorldLoaded(worldId)) {
+            return;
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        while (System.nanoTime() - deadline < 0) {
+            if (!step()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of stored signs removed because their block is gone or their holograms could not be rebuilt.
+     * @return The dead mapping count since startup
+     */
+    long getDeadMappingCount() {
+        return deadMappings;
+    }
+
+    /**
+     * Gets the number of signs whose missing holograms were rebuilt from their text.
+     * @return The respawned sign count since startup
+     */
+    long getRespawnedCount() {
+        return respawned;
+    }
+
+    /**
+     * Gets the number of hologram entities removed because no stored sign owned them.
+     * @return The orphan entity count since startup
+     */
+    long getOrphanCount() {
+        return orphans;
+    }
+
+    /**
+     * Does one bounded unit of work.
+     * @return false once the sweep has finished and the slice should stop
+     */
+    private boolean step() {
+        switch (phase) {
+            case IDLE -> {
+                signs = signHologramStorage.getLoadedSigns(worldId);
+                signIndex = 0;
+                phase = SIGNS;
+            }
+            case SIGNS -> {
+                if (signIndex < signs.length) {
+                    checkSign(signs[signIndex++]);
+                } else {
+                    signs = new long[0];
+                    entityChunks = listHologramChunks();
+                    entityChunkIndex = 0;
+                    entityIndex = 0;
+                    phase = ENTITIES;
+                }
+            }
+            default -> {
+                if (entityChunkIndex == entityChunks.size()) {
+                    finishSweep();
+                    return false;
+                }
+                ArchetypeChunk<EntityStore> chunk = entityChunks.get(entityChunkIndex);
+                if (entityIndex < chunk.size()) {
+                    // A removal may move another entity into this slot; check that one next instead of skipping it
+                    Ref<EntityStore> ref = chunk.getReferenceTo(entityIndex);
+                    if (!checkEntity(ref) || entityIndex >= chunk.size() || chunk.getReferenceTo(entityIndex) == ref) {
+                        entityIndex++;
+                    }
+                } else {
+                    entityChunkIndex++;
+                    entityIndex = 0;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void finishSweep() {
+        entityChunks = new ArrayList<>();
+        phase = IDLE;
+        nextSweepNanos = System.nanoTime() + Math.max(1, QuickSigns.getReconcileIntervalSeconds()) * 1_000_000_000L;
+
+        if (sweepDeadMappings + sweepRespawned + sweepOrphans > 0) {
+            QuickSigns.logger().atInfo().log("Reconciled sign holograms in world " + worldId + ": removed "
+                + sweepDeadMappings + " dead signs, rebuilt " + sweepRespawned + " signs, removed "
+                + sweepOrphans + " orphan holograms");
+        } else {
+            QuickSigns.debug("Reconciled sign holograms in world " + worldId + ": nothing to fix");
+        }
+        deadMappings += sweepDeadMappings;
+        respawned += sweepRespawned;
+        orphans += sweepOrphans;
+        sweepDeadMappings = 0;
+        sweepRespawned = 0;
+        sweepOrphans = 0;
+    }
+
+    /**
+     * Removes a stored sign whose block is gone, and rebuilds or drops one whose holograms are missing.
+     */
+    private void checkSign(long location) {
+        int x = SignLocation.unpackX(location);
+        int y = SignLocation.unpackY(location);
+        int z = SignLocation.unpackZ(location);
+        SignRecord record = signHologramStorage.getSign(worldId, x, y, z);
+        if (record == null) {
+            return; // Removed since the sweep started
+        }
+
+        Boolean isSign = SignUtil.isSignAt(world, x, y, z);
+        if (isSign == null) {
+            return; // Block not readable right now; try again next sweep
+        }
+        if (!isSign) {
+            QuickSigns.debug("Reconciler: sign at " + worldId + ":" + x + ":" + y + ":" + z + " is gone, removing");
+            queue.deleteSignHolograms(x, y, z);
+            sweepDeadMappings++;
+            return;
+        }
+
+        if (visibility.isCulled(location) || queue.isSpawned(location, record)) {
+            return;
+        }
+        if (!record.hasText()) {
+            // Nothing left to show and nothing to rebuild from
+            QuickSigns.debug("Reconciler: holograms of sign at " + worldId + ":" + x + ":" + y + ":" + z + " are gone, removing");
+            queue.deleteSignHolograms(x, y, z);
+            sweepDeadMappings++;
+            return;
+        }
+
+        queue.despawn(location, record);
+        List<UUID> uuids = queue.materialize(x, y, z, record);
+        if (!record.hasHolograms(uuids)) {
+            signHologramStorage.putSign(worldId, x, y, z, new SignRecord(uuids, record.getLines(), record.getFacing()));
+        }
+        visibility.markSpawned(location);
+        sweepRespawned++;
+        QuickSigns.debug("Reconciler: rebuilt holograms of sign at " + worldId + ":" + x + ":" + y + ":" + z);
+    }
+
+    /**
+     * Removes a hologram entity unless the stored sign it stands in front of lists its UUID.
+     * @return true if the entity was removed
+     */
+    private boolean checkEntity(Ref<EntityStore> ref) {
+        if (ref == null || !ref.isValid()) {
+            return false;
+        }
+        var store = world.getEntityStore().getStore();
+        UUIDComponent uuidComponent = store.getComponent(ref, UUIDComponent.getComponentType());
+        TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
+        if (uuidComponent == null || transform == null || transform.getPosition() == null) {
+            return false;
+        }
+
+        // Holograms stand inside the sign's block column, at most a fraction of a block above or below it
+        Vector3d position = transform.getPosition();
+        int x = (int) Math.floor(position.getX());
+        int y = (int) Math.round(position.getY());
+        int z = (int) Math.floor(position.getZ());
+        UUID uuid = uuidComponent.getUuid();
+        for (int dy = -1; dy <= 1; dy++) {
+            SignRecord record = signHologramStorage.getSign(worldId, x, y + dy, z);
+            if (record != null && record.containsHologram(uuid)) {
+                return false;
+            }
+        }
+
+        store.removeEntity(ref, RemoveReason.REMOVE);
+        sweepOrphans++;
+        QuickSigns.debug("Reconciler: removed orphan hologram " + uuid + " at " + worldId + ":" + x + ":" + y + ":" + z);
+        return true;
+    }
+
+    /**
+     * Takes the entity chunks holding holograms, in a single pass that only collects the chunks.
+     */
+    private List<ArchetypeChunk<EntityStore>> listHologramChunks() {
+        List<ArchetypeChunk<EntityStore>> chunks = new ArrayList<>();
+        world.getEntityStore().getStore().forEachChunk(HologramComponent.getComponentType(),
+            (chunk, commandBuffer) -> chunks.add(chunk));
+        return chunks;
+    }
+}
@@ -0,0 +1,112 @@
+package me.ascheladd.hytale.quicksigns.hologram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import me.ascheladd.hytale.quicksigns.storage.LongObjectMap;
+import me.ascheladd.hytale.quicksigns.storage.SignLocation;
+
+/**
+ * Live entity references of the holograms spawned in one world, by sign location.
+ *
+ * Holograms spawned since startup are removed through the reference returned when they were
+ * created, without a global UUID lookup. Entries are grouped by chunk column so a chunk unload,
+ * which invalidates the references of the entities it saves away, drops them in one step.
+ * Signs missing here (spawned before a restart, or in a chunk that was unloaded since) are still
+ * resolved by UUID.
+ *
+ * Synchronized because chunk unload events may arrive off the world thread; it is otherwise
+ * only touched while draining the world's operation queue.
+ */
+class HologramRefCache {
+
+    private final LongObjectMap<LongObjectMap<CachedSign>> chunks = new LongObjectMap<>();
+
+    /**
+     * Remembers a hologram entity spawned for a sign.
+     * @param location The packed sign location
+     * @param uuid The hologram UUID
+     * @param ref The hologram entity reference
+     */
+    synchronized void add(long location, UUID uuid, Ref<EntityStore> ref) {
+        long chunkKey = SignLocation.chunkKeyOf(location);
+        LongObjectMap<CachedSign> signs = chunks.get(chunkKey);
+        if (signs == null) {
+            signs = new LongObjectMap<>();
+            chunks.put(chunkKey, signs);
+        }
+        CachedSign sign = signs.get(location);
+        if (sign == null) {
+            sign = new CachedSign();
+            signs.put(location, sign);
+        }
+        sign.uuids.add(uuid);
+        sign.refs.add(ref);
+    }
+
+    /**
+     * Gets the cached holograms of a sign.
+     * @param location The packed sign location
+     * @return The cached holograms, or null if none are cached
+     */
+    synchronized CachedSign get(long location) {
+        LongObjectMap<CachedSign> signs = chunks.get(SignLocation.chunkKeyOf(location));
+        return signs != null ? signs.get(location) : null;
+    }
+
+    /**
+     * Removes and returns the cached holograms of a sign.
+     * @param location The packed sign location
+     * @return The cached holograms, or null if none are cached
+     */
+    synchronized CachedSign remove(long location) {
+        long chunkKey = SignLocation.chunkKeyOf(location);
+        LongObjectMap<CachedSign> signs = chunks.get(chunkKey);
+        if (signs == null) {
+            return null;
+        }
+        CachedSign sign = signs.remove(location);
+        if (sign != null && signs.isEmpty()) {
+            chunks.remove(chunkKey);
+        }
+        return sign;
+    }
+
+    /**
+     * Drops every cached reference in a chunk column.
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     */
+    synchronized void invalidateChunk(int chunkX, int chunkZ) {
+        chunks.remove(SignLocation.chunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * The cached holograms of one sign, with each UUID at the same index as its reference.
+     */
+    static final class CachedSign {
+        final List<UUID> uuids = new ArrayList<>(3);
+        final List<Ref<EntityStore>> refs = new ArrayList<>(3);
+
+        /**
+         * Gets the live reference of a hologram, by the two halves of its UUID so nothing is allocated.
+         * @param msb The most significant bits of the hologram UUID
+         * @param lsb The least significant bits of the hologram UUID
+         * @return The reference, or null if it is not cached or no longer valid
+         */
+        Ref<EntityStore> refFor(long msb, long lsb) {
+            for (int i = 0; i < uuids.size(); i++) {
+                UUID uuid = uuids.get(i);
+                if (uuid.getMostSignificantBits() == msb && uuid.getLeastSignificantBits() == lsb) {
+                    Ref<EntityStore> ref = refs.get(i);
+                    return ref != null && ref.isValid() ? ref : null;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package me.ascheladd.hytale.quicksigns.hologram;
+
+import javax.annotation.Nonnull;
+
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.system.tick.TickingSystem;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Starts each world's hologram tick from the world's own tick, on its thread, so the per-tick hologram
+ * budget follows the server's ticks rather than a wall-clock timer.
+ */
+public class HologramTickSystem extends TickingSystem<EntityStore> {
+
+    private final HologramOperations hologramOperations;
+
+    /**
+     * Creates the tick system.
+     * @param hologramOperations The per-world hologram operation queues
+     */
+    public HologramTickSystem(HologramOperations hologramOperations) {
+        this.hologramOperations = hologramOperations;
+    }
+
+    @Override
+    public void tick(float dt, int systemIndex, @Nonnull Store<EntityStore> store) {
+        hologramOperations.tick(store.getExternalData().getWorld());
+    }
+}
@@ -0,0 +1,291 @@
+package me.ascheladd.hytale.quicksigns.hologram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import me.ascheladd.hytale.quicksigns.QuickSigns;
+import me.ascheladd.hytale.quicksigns.storage.LongObjectMap;
+import me.ascheladd.hytale.quicksigns.storage.SignStorage;
+import me.ascheladd.hytale.quicksigns.storage.SignLocation;
+import me.ascheladd.hytale.quicksigns.storage.SignRecord;
+
+/**
+ * Despawns the holograms of signs no player is near and rebuilds them from the stored text when one approaches,
+ * so dense towns only cost entity tracking and packets for the signs someone can actually read.
+ *
+ * A sign's holograms are despawned once every player is farther than the view distance plus a hysteresis margin,
+ * and spawned again once any player is within the view distance, so players at the edge do not cause churn.
+ * Signs stored before their text was kept are never despawned, since they could not be rebuilt.
+ *
+ * Whether a sign's holograms are spawned is only known for signs seen since startup, and is forgotten when their
+ * chunk unloads; a sign in an unknown state is checked by UUID lookup the first time it is near or far.
+ * Updates run on the world thread; the state is synchronized because chunk unloads may be reported off it.
+ */
+class HologramVisibility {
+
+    /**
+     * Most signs changing state in one pass, so a player teleporting into a town spreads the work over a few passes.
+     */
+    private static final int MAX_CHANGES_PER_PASS = 128;
+
+    private static final Boolean SPAWNED = Boolean.TRUE;
+    private static final Boolean CULLED = Boolean.FALSE;
+
+    private final World world;
+    private final String worldId;
+    private final HologramOperationQueue queue;
+    private final SignStorage signHologramStorage;
+
+    // Known state of signs by chunk key, then location
+    private final LongObjectMap<LongObjectMap<Boolean>> states = new LongObjectMap<>();
+    private int culledCount;
+
+    /**
+     * Creates the visibility manager of a world.
+     * @param world The world
+     * @param queue The world's hologram operation queue, used to spawn and despawn entities
+     * @param signHologramStorage The sign hologram storage instance
+     */
+    HologramVisibility(World world, HologramOperationQueue queue, SignStorage signHologramStorage) {
+        this.world = world;
+        this.worldId = world.getName();
+        this.queue = queue;
+        this.signHologramStorage = signHologramStorage;
+    }
+
+    /**
+     * Despawns holograms that went out of view and spawns those that came into view. Runs on the world thread.
+     * The pass is skipped if the player positions cannot be read, rather than despawning everything.
+     */
+    void update() {
+        List<Vector3d> players = playerPositions();
+        if (players == null) {
+            return;
+        }
+        update(signHologramStorage.getLoadedSigns(worldId), players);
+    }
+
+    /**
+     * Spawns the holograms of a sign in a chunk column that was just loaded, if it is in view.
+     * Holograms are not saved with the world, so this is what brings them back. Runs on the world thread,
+     * within the operation queue's budget.
+     * @param location The packed sign location
+     * @param players The player positions, see {@link #playerPositions()}; if null, the sign is left to a later pass
+     */
+    void updateLoaded(long location, List<Vector3d> players) {
+        if (players == null) {
+            return;
+        }
+        update(new long[] { location }, players);
+    }
+
+    /**
+     * Despawns or spawns the holograms of the given signs by player distance, up to the per-pass limit.
+     * Signs left over keep an unknown state and are handled by a later pass.
+     */
+    private void update(long[] locations, List<Vector3d> players) {
+        int viewDistance = QuickSigns.getHologramViewDistance();
+        double spawnDistanceSq = viewDistance > 0 ? (double) viewDistance * viewDistance : Double.POSITIVE_INFINITY;
+        double keepDistance = viewDistance + Math.max(0, QuickSigns.getHologramViewHysteresis());
+        double keepDistanceSq = viewDistance > 0 ? keepDistance * keepDistance : Double.POSITIVE_INFINITY;
+
+        int changes = 0;
+        for (long location : locations) {
+            if (changes >= MAX_CHANGES_PER_PASS) {
+                break; // Continue next pass
+            }
+            double distanceSq = nearestPlayerDistanceSq(location, players);
+            Boolean state = stateOf(location);
+
+            if (distanceSq <= spawnDistanceSq && state != SPAWNED) {
+                changes++;
+                show(location, state);
+            } else if (distanceSq > keepDistanceSq && state != CULLED) {
+                changes++;
+                hide(location);
+            }
+        }
+    }
+
+    /**
+     * Records that a sign's holograms were just spawned.
+     * @param location The packed sign location
+     */
+    synchronized void markSpawned(long location) {
+        setState(location, SPAWNED);
+    }
+
+    /**
+     * Checks whether a sign's holograms are despawned for being out of view.
+     * @param location The packed sign location
+     * @return true if the sign is culled
+     */
+    synchronized boolean isCulled(long location) {
+        return stateOf(location) == CULLED;
+    }
+
+    /**
+     * Forgets a sign that was removed.
+     * @param location The packed sign location
+     */
+    synchronized void forget(long location) {
+        setState(location, null);
+    }
+
+    /**
+     * Forgets the state of every sign in an unloading chunk column.
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
+     */
+    synchronized void invalidateChunk(int chunkX, int chunkZ) {
+        LongObjectMap<Boolean> chunk = states.remove(SignLocation.chunkKey(chunkX, chunkZ));
+        if (chunk != null) {
+            chunk.forEach((location, state) -> {
+                if (state == CULLED) {
+                    culledCount--;
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the number of signs whose holograms are despawned for being out of view.
+     * @return The culled sign count
+     */
+    synchronized int getCulledCount() {
+        return culledCount;
+    }
+
+    /**
+     * Makes sure a sign's holograms exist, rebuilding them from its record if they do not.
+     */
+    private void show(long location, Boolean state) {
+        int x = SignLocation.unpackX(location);
+        int y = SignLocation.unpackY(location);
+        int z = SignLocation.unpackZ(location);
+        SignRecord record = signHologramStorage.getSign(worldId, x, y, z);
+        if (record == null) {
+            markForgotten(location);
+            return;
+        }
+        if (state == null && queue.isSpawned(location, record)) {
+            markSpawnedState(location);
+            return;
+        }
+        if (!record.hasText()) {
+            // Nothing to rebuild from; leave whatever is there alone
+            markSpawnedState(location);
+            return;
+        }
+
+        // Clear any partial leftovers, then rebuild
+        queue.despawn(location, record);
+        List<UUID> uuids = queue.materialize(x, y, z, record);
+        if (!record.hasHolograms(uuids)) {
+            signHologramStorage.putSign(worldId, x, y, z, new SignRecord(uuids, record.getLines(), record.getFacing()));
+        }
+        markSpawnedState(location);
+        QuickSigns.debug("Hologram at " + worldId + ":" + x + ":" + y + ":" + z + " came into view, spawned " + uuids.size() + " entities");
+    }
+
+    /**
+     * Despawns a sign's holograms, keeping its record so they can be rebuilt.
+     */
+    private void hide(long location) {
+        int x = SignLocation.unpackX(location);
+        int y = SignLocation.unpackY(location);
+        int z = SignLocation.unpackZ(location);
+        SignRecord record = signHologramStorage.getSign(worldId, x, y, z);
+        if (record == null) {
+            markForgotten(location);
+            return;
+        }
+        if (!record.hasText()) {
+            // Could not be rebuilt, so it always stays spawned
+            markSpawnedState(location);
+            return;
+        }
+        queue.despawn(location, record);
+        synchronized (this) {
+            setState(location, CULLED);
+        }
+        QuickSigns.debug("Hologram at " + worldId + ":" + x + ":" + y + ":" + z + " went out of view, despawned");
+    }
+
+    private synchronized void markSpawnedState(long location) {
+        setState(location, SPAWNED);
+    }
+
+    private synchronized void markForgotten(long location) {
+        setState(location, null);
+    }
+
+    private synchronized Boolean stateOf(long location) {
+        LongObjectMap<Boolean> chunk = states.get(SignLocation.chunkKeyOf(location));
+        return chunk != null ? chunk.get(location) : null;
+    }
+
+    /**
+     * Sets or clears (null) a sign's state, keeping the culled count in step. Caller holds the lock.
+     */
+    private void setState(long location, Boolean state) {
+        long chunkKey = SignLocation.chunkKeyOf(location);
+        LongObjectMap<Boolean> chunk = states.get(chunkKey);
+        if (chunk == null) {
+            if (state == null) {
+                return;
+            }
+            chunk = new LongObjectMap<>();
+            states.put(chunkKey, chunk);
+        }
+        Boolean previous = state != null ? chunk.put(location, state) : chunk.remove(location);
+        if (previous == CULLED) {
+            culledCount--;
+        }
+        if (state == CULLED) {
+            culledCount++;
+        }
+        if (chunk.isEmpty()) {
+            states.remove(chunkKey);
+        }
+    }
+
+    /**
+     * Gets the positions of the players in the world.
+     * @return The player positions, empty if no player is in the world, or null if they could not be read
+     */
+    List<Vector3d> playerPositions() {
+        List<Vector3d> positions = new ArrayList<>();
+        try {
+            for (PlayerRef player : world.getPlayerRefs()) {
+                var transform = player.getTransform();
+                if (transform != null && transform.getPosition() != null) {
+                    positions.add(transform.getPosition());
+                }
+            }
+        } catch (Exception e) {
+            QuickSigns.debug("Could not read player positions in world " + worldId + ", skipping visibility: " + e.getMessage());
+            return null;
+        }
+        return positions;
+    }
+
+    private static double nearestPlayerDistanceSq(long location, List<Vector3d> players) {
+        double x = SignLocation.unpackX(location) + 0.5;
+        double y = SignLocation.unpackY(location) + 0.5;
+        double z = SignLocation.unpackZ(location) + 0.5;
+        double nearest = Double.POSITIVE_INFINITY;
+        for (Vector3d player : players) {
+            double dx = player.getX() - x;
+            double dy = player.getY() - y;
+            double dz = player.getZ() - z;
+            nearest = Math.min(nearest, dx * dx + dy * dy + dz * dz);
+        }
+        return nearest;
+    }
+}
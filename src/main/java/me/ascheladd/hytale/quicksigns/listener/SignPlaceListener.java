@@ -17,7 +17,7 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import me.ascheladd.hytale.quicksigns.QuickSigns;
-import me.ascheladd.hytale.quicksigns.storage.SignHologramStorage;
+import me.ascheladd.hytale.quicksigns.hologram.HologramOperations;
 import me.ascheladd.hytale.quicksigns.ui.SignTextInputPage;
 import me.ascheladd.hytale.quicksigns.util.SignUtil;
 
@@ -26,15 +26,15 @@ import me.ascheladd.hytale.quicksigns.util.SignUtil;
  */
 public class SignPlaceListener extends EntityEventSystem<EntityStore, PlaceBlockEvent> {
     
-    private final SignHologramStorage signHologramStorage;
+    private final HologramOperations hologramOperations;
     
     /**
      * Creates a new sign place listener.
-     * @param signHologramStorage The sign hologram storage instance
+     * @param hologramOperations The per-world hologram operation queues
      */
-    public SignPlaceListener(SignHologramStorage signHologramStorage) {
+    public SignPlaceListener(HologramOperations hologramOperations) {
         super(PlaceBlockEvent.class);
-        this.signHologramStorage = signHologramStorage;
+        this.hologramOperations = hologramOperations;
     }
     
     @Override
@@ -89,7 +89,7 @@ public class SignPlaceListener extends EntityEventSystem<EntityStore, PlaceBlock
             signX,
             signY,
             signZ,
-            signHologramStorage
+            hologramOperations
         );
         
         player.getPageManager().openCustomPage(
@@ -0,0 +1,73 @@
+package me.ascheladd.hytale.quicksigns.listener;
+
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.events.AddWorldEvent;
+import com.hypixel.hytale.server.core.universe.world.events.ChunkPreLoadProcessEvent;
+import com.hypixel.hytale.server.core.universe.world.events.ChunkUnloadEvent;
+import com.hypixel.hytale.server.core.universe.world.events.RemoveWorldEvent;
+
+import me.ascheladd.hytale.quicksigns.hologram.HologramOperations;
+import me.ascheladd.hytale.quicksigns.storage.SignStorage;
+
+/**
+ * Loads a world's sign holograms when the world is added and flushes and unloads them when it is removed.
+ * Within a loaded world, a chunk's signs are paged in and out together with the chunk.
+ */
+public class WorldLifecycleListener {
+    
+    private final SignStorage signHologramStorage;
+    private final HologramOperations hologramOperations;
+    
+    /**
+     * Creates a new world lifecycle listener.
+     * @param signHologramStorage The sign hologram storage instance
+     * @param hologramOperations The per-world hologram operation queues
+     */
+    public WorldLifecycleListener(SignStorage signHologramStorage, HologramOperations hologramOperations) {
+        this.signHologramStorage = signHologramStorage;
+        this.hologramOperations = hologramOperations;
+    }
+    
+    /**
+     * Starts loading the world's sign holograms in the background and sets up its hologram operation queue.
+     * @param event The world add event
+     */
+    public void onWorldAdd(AddWorldEvent event) {
+        signHologramStorage.loadWorldAsync(event.getWorld().getName());
+        hologramOperations.forWorld(event.getWorld());
+    }
+    
+    /**
+     * Drops the world's hologram operation queue, then flushes and unloads its sign holograms.
+     * @param event The world remove event
+     */
+    public void onWorldRemove(RemoveWorldEvent event) {
+        hologramOperations.removeWorld(event.getWorld().getName());
+        signHologramStorage.unloadWorld(event.getWorld().getName());
+    }
+    
+    /**
+     * Pages the chunk's signs into memory and, once they are in, queues rebuilding their holograms,
+     * which are not saved with the chunk.
+     * @param event The chunk load event
+     */
+    public void onChunkLoad(ChunkPreLoadProcessEvent event) {
+        WorldChunk chunk = event.getChunk();
+        String worldId = chunk.getWorld().getName();
+        int chunkX = chunk.getX();
+        int chunkZ = chunk.getZ();
+        signHologramStorage.onChunkLoad(worldId, chunkX, chunkZ)
+            .thenRun(() -> hologramOperations.onChunkLoad(worldId, chunkX, chunkZ));
+    }
+    
+    /**
+     * Pages the chunk's signs out of memory once they are saved, and forgets the references
+     * of its hologram entities, which are dropped with it.
+     * @param event The chunk unload event
+     */
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        WorldChunk chunk = event.getChunk();
+        hologramOperations.onChunkUnload(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+        signHologramStorage.onChunkUnload(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+    }
+}
@@ -0,0 +1,133 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot format for sign hologram mappings, written by versions before region
+ * files and now only read to migrate old storage. It holds hologram UUIDs only, no sign text.
+ *
+ * UUIDs are stored as two longs and locations as the packed long used in memory
+ * (see {@link SignLocation}), so loading is a sequential scan over a memory-mapped file
+ * with no text parsing and no intermediate copies of the dataset.
+ *
+ * Layout (big-endian):
+ * <pre>
+ * int   magic "QSGN"
+ * short version
+ * int   worldCount
+ * per world:
+ *   short nameLength, byte[] name (UTF-8)
+ *   per chunk: int signCount (> 0), then per sign:
+ *     long location, byte uuidCount, uuidCount x (long msb, long lsb)
+ *   int   0 (end of world)
+ * int   crc32 of everything above
+ * </pre>
+ */
+final class BinarySnapshot {
+
+    private static final int MAGIC = 0x5153474E; // "QSGN"
+    private static final short VERSION = 2;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private BinarySnapshot() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Reads a snapshot through a memory-mapped buffer, handing each entry to the consumer.
+     * The file is verified against its checksum before any entry is delivered.
+     * @param file The snapshot file
+     * @param consumer Receives each sign entry
+     * @return The number of entries read
+     * @throws IOException If the file cannot be read or is not a valid snapshot
+     */
+    static int read(Path file, EntryConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 14 || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size: " + size);
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int bodyLength = (int) size - 4;
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate().limit(bodyLength));
+            if ((int) crc.getValue() != buf.getInt(bodyLength)) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            buf.limit(bodyLength);
+
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("Not a sign hologram snapshot");
+            }
+            short version = buf.getShort();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+
+            try {
+                int entries = 0;
+                int worldCount = buf.getInt();
+                for (int w = 0; w < worldCount; w++) {
+                    byte[] name = new byte[buf.getShort() & 0xFFFF];
+                    buf.get(name);
+                    String worldId = new String(name, StandardCharsets.UTF_8);
+                    if (version == 1) {
+                        entries += readEntries(buf, worldId, buf.getInt(), consumer);
+                        continue;
+                    }
+                    int blockSize;
+                    while ((blockSize = buf.getInt()) != 0) {
+                        entries += readEntries(buf, worldId, blockSize, consumer);
+                    }
+                }
+                return entries;
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Truncated snapshot", e);
+            }
+        }
+    }
+
+    /**
+     * Reads a run of sign entries.
+     */
+    private static int readEntries(ByteBuffer buf, String worldId, int signCount, EntryConsumer consumer) {
+        for (int s = 0; s < signCount; s++) {
+            long location = buf.getLong();
+            int count = buf.get() & 0xFF;
+            List<UUID> uuids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                uuids.add(new UUID(buf.getLong(), buf.getLong()));
+            }
+            consumer.accept(worldId, location, SignRecord.ofHolograms(uuids));
+        }
+        return signCount;
+    }
+
+    /**
+     * Receives snapshot entries.
+     */
+    @FunctionalInterface
+    interface EntryConsumer {
+        /**
+         * Accepts one sign entry.
+         * @param worldId The world ID
+         * @param location The packed location
+         * @param record The sign record
+         */
+        void accept(String worldId, long location, SignRecord record);
+    }
+}
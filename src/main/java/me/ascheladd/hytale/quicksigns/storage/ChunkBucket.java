@@ -0,0 +1,134 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.util.Arrays;
+
+/**
+ * The tracked signs of one chunk column, kept as a small array sorted by packed location.
+ * Chunks rarely hold more than a handful of signs, so a binary search over a
+ * contiguous {@code long[]} beats a per-sign hash entry both in memory and in cache misses.
+ *
+ * Not thread-safe; guarded by the owning {@link WorldSigns}. A bucket that was handed out in a
+ * {@link WorldSigns.Snapshot} is never modified again; the table replaces it with a copy first.
+ */
+class ChunkBucket {
+
+    private static final int INITIAL_CAPACITY = 2;
+
+    private long[] locations;
+    private SignRecord[] values;
+    private int size;
+
+    /**
+     * The snapshot epoch of the owning table this bucket was created in; set by {@link WorldSigns}.
+     */
+    long epoch;
+
+    /**
+     * Creates an empty bucket.
+     */
+    ChunkBucket() {
+        this.locations = new long[INITIAL_CAPACITY];
+        this.values = new SignRecord[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Creates a detached copy of this bucket. Records are immutable and shared.
+     * @return The copy
+     */
+    ChunkBucket copy() {
+        ChunkBucket copy = new ChunkBucket();
+        copy.locations = Arrays.copyOf(locations, Math.max(size, 1));
+        copy.values = Arrays.copyOf(values, copy.locations.length);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Gets the sign at a location.
+     * @param location The packed location
+     * @return The record, or null if no sign is tracked there
+     */
+    SignRecord get(long location) {
+        int index = Arrays.binarySearch(locations, 0, size, location);
+        return index >= 0 ? values[index] : null;
+    }
+
+    /**
+     * Checks whether a sign is tracked at a location.
+     * @param location The packed location
+     * @return true if a sign is tracked there
+     */
+    boolean contains(long location) {
+        return Arrays.binarySearch(locations, 0, size, location) >= 0;
+    }
+
+    /**
+     * Stores the sign at a location.
+     * @param location The packed location
+     * @param record The record
+     * @return The previous record, or null if none
+     */
+    SignRecord put(long location, SignRecord record) {
+        int index = Arrays.binarySearch(locations, 0, size, location);
+        if (index >= 0) {
+            SignRecord previous = values[index];
+            values[index] = record;
+            return previous;
+        }
+        int insertAt = -index - 1;
+        if (size == locations.length) {
+            locations = Arrays.copyOf(locations, size << 1);
+            values = Arrays.copyOf(values, size << 1);
+        }
+        System.arraycopy(locations, insertAt, locations, insertAt + 1, size - insertAt);
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        locations[insertAt] = location;
+        values[insertAt] = record;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the sign at a location.
+     * @param location The packed location
+     * @return The removed record, or null if no sign was tracked there
+     */
+    SignRecord remove(long location) {
+        int index = Arrays.binarySearch(locations, 0, size, location);
+        if (index < 0) {
+            return null;
+        }
+        SignRecord removed = values[index];
+        int tail = size - index - 1;
+        System.arraycopy(locations, index + 1, locations, index, tail);
+        System.arraycopy(values, index + 1, values, index, tail);
+        values[--size] = null;
+        return removed;
+    }
+
+    /**
+     * Gets the number of signs in this chunk.
+     * @return The sign count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the packed location at an index, in ascending order.
+     * @param index The index, between 0 and {@link #size()}
+     * @return The packed location
+     */
+    long locationAt(int index) {
+        return locations[index];
+    }
+
+    /**
+     * Gets the sign at an index, in ascending location order.
+     * @param index The index, between 0 and {@link #size()}
+     * @return The record
+     */
+    SignRecord valueAt(int index) {
+        return values[index];
+    }
+}
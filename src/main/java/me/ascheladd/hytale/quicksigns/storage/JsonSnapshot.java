@@ -0,0 +1,395 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JSON snapshot format, kept for import/export and for servers that prefer a human-readable file:
+ * <pre>
+ * {"Signs": {"worldId:x:y:z": {"Holograms": ["uuid", ...], "Facing": 0, "Lines": ["text", ...]}, ...}}
+ * </pre>
+ * {@code Facing} and {@code Lines} are only written for signs whose text is known. The original
+ * format, where each sign maps straight to its array of hologram UUIDs, is still read.
+ *
+ * Both directions stream: the writer encodes one chunk at a time straight from the live tables,
+ * and the reader hands entries to the consumer as they are parsed, so neither ever holds the whole
+ * dataset as a map, document or string.
+ */
+final class JsonSnapshot {
+
+    private static final String SIGNS_KEY = "Signs";
+    private static final String HOLOGRAMS_KEY = "Holograms";
+    private static final String FACING_KEY = "Facing";
+    private static final String LINES_KEY = "Lines";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private JsonSnapshot() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Writes a snapshot atomically.
+     * @param file The snapshot file
+     * @param worlds The worlds to write
+     * @throws IOException If writing fails
+     */
+    static void write(Path file, Collection<SignTable> worlds) throws IOException {
+        SnapshotFiles.writeAtomically(file, raw -> {
+            Writer out = new OutputStreamWriter(raw, StandardCharsets.UTF_8);
+            out.write("{\"" + SIGNS_KEY + "\": {");
+            boolean[] first = {true};
+            for (SignTable world : worlds) {
+                String worldId = world.getWorldId();
+                world.forEachChunk(bucket -> {
+                    for (int i = 0; i < bucket.size(); i++) {
+                        out.write(first[0] ? "\n  " : ",\n  ");
+                        first[0] = false;
+                        writeString(out, SignLocation.toKey(worldId, bucket.locationAt(i)));
+                        out.write(": ");
+                        writeRecord(out, bucket.valueAt(i));
+                    }
+                });
+            }
+            out.write(first[0] ? "}}\n" : "\n}}\n");
+            out.flush();
+        });
+    }
+
+    /**
+     * Reads a snapshot, handing each entry to the consumer as soon as it is parsed.
+     * Malformed keys and invalid UUIDs are skipped; unknown top-level fields are ignored.
+     * @param file The snapshot file
+     * @param consumer Receives each sign entry
+     * @return The number of entries read
+     * @throws IOException If the file cannot be read or is not valid JSON
+     */
+    static int read(Path file, BinarySnapshot.EntryConsumer consumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonReader json = new JsonReader(reader);
+            int entries = 0;
+            json.expect('{');
+            if (json.next('}')) {
+                return 0;
+            }
+            do {
+                String field = json.readString();
+                json.expect(':');
+                if (!SIGNS_KEY.equals(field)) {
+                    json.skipValue();
+                    continue;
+                }
+                json.expect('{');
+                if (json.next('}')) {
+                    continue;
+                }
+                do {
+                    String key = json.readString();
+                    json.expect(':');
+                    SignRecord record = json.peekIs('[') ? SignRecord.ofHolograms(readUuids(json)) : readRecord(json);
+                    if (acceptEntry(key, record, consumer)) {
+                        entries++;
+                    }
+                } while (json.next(','));
+                json.expect('}');
+            } while (json.next(','));
+            json.expect('}');
+            return entries;
+        }
+    }
+
+    /**
+     * Writes a sign record object.
+     */
+    private static void writeRecord(Writer out, SignRecord record) throws IOException {
+        out.write("{\"" + HOLOGRAMS_KEY + "\": [");
+        List<UUID> uuids = record.getHologramIds();
+        for (int u = 0; u < uuids.size(); u++) {
+            if (u > 0) {
+                out.write(", ");
+            }
+            out.write('"');
+            out.write(uuids.get(u).toString());
+            out.write('"');
+        }
+        out.write(']');
+        if (record.hasText()) {
+            out.write(", \"" + FACING_KEY + "\": " + record.getFacing() + ", \"" + LINES_KEY + "\": [");
+            List<String> lines = record.getLines();
+            for (int l = 0; l < lines.size(); l++) {
+                if (l > 0) {
+                    out.write(", ");
+                }
+                writeString(out, lines.get(l));
+            }
+            out.write(']');
+        }
+        out.write('}');
+    }
+
+    /**
+     * Reads a sign record object, ignoring unknown fields.
+     */
+    private static SignRecord readRecord(JsonReader json) throws IOException {
+        List<UUID> uuids = new ArrayList<>(1);
+        List<String> lines = new ArrayList<>(3);
+        byte facing = SignRecord.FACING_UNKNOWN;
+        json.expect('{');
+        if (json.next('}')) {
+            return SignRecord.ofHolograms(uuids);
+        }
+        do {
+            String field = json.readString();
+            json.expect(':');
+            if (HOLOGRAMS_KEY.equals(field)) {
+                uuids = readUuids(json);
+            } else if (FACING_KEY.equals(field)) {
+                try {
+                    facing = Byte.parseByte(json.readLiteral());
+                } catch (NumberFormatException e) {
+                    facing = SignRecord.FACING_UNKNOWN;
+                }
+            } else if (LINES_KEY.equals(field)) {
+                json.expect('[');
+                if (!json.next(']')) {
+                    do {
+                        lines.add(json.readString());
+                    } while (json.next(','));
+                    json.expect(']');
+                }
+            } else {
+                json.skipValue();
+            }
+        } while (json.next(','));
+        json.expect('}');
+        return new SignRecord(uuids, lines, facing);
+    }
+
+    /**
+     * Reads an array of UUID strings, skipping any that do not parse.
+     */
+    private static List<UUID> readUuids(JsonReader json) throws IOException {
+        List<UUID> uuids = new ArrayList<>(1);
+        json.expect('[');
+        if (json.next(']')) {
+            return uuids;
+        }
+        do {
+            try {
+                uuids.add(UUID.fromString(json.readString()));
+            } catch (IllegalArgumentException e) {
+                // Skip invalid UUIDs
+            }
+        } while (json.next(','));
+        json.expect(']');
+        return uuids;
+    }
+
+    /**
+     * Parses a "worldId:x:y:z" key from the right (world IDs may contain colons) and delivers the entry.
+     * @return false if the key is malformed
+     */
+    private static boolean acceptEntry(String key, SignRecord record, BinarySnapshot.EntryConsumer consumer) {
+        int zSep = key.lastIndexOf(':');
+        int ySep = zSep > 0 ? key.lastIndexOf(':', zSep - 1) : -1;
+        int xSep = ySep > 0 ? key.lastIndexOf(':', ySep - 1) : -1;
+        if (xSep <= 0) {
+            return false;
+        }
+        long location;
+        try {
+            location = SignLocation.pack(
+                    Integer.parseInt(key, xSep + 1, ySep, 10),
+                    Integer.parseInt(key, ySep + 1, zSep, 10),
+                    Integer.parseInt(key, zSep + 1, key.length(), 10)
+            );
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        consumer.accept(key.substring(0, xSep), location, record);
+        return true;
+    }
+
+    /**
+     * Writes a JSON string literal.
+     */
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Minimal pull parser over a character stream, just enough for the snapshot layout.
+     */
+    private static final class JsonReader {
+        private final Reader in;
+        private int peeked = -2;
+
+        JsonReader(Reader in) {
+            this.in = in;
+        }
+
+        /**
+         * Consumes the given token, failing if the next token is anything else.
+         */
+        void expect(char token) throws IOException {
+            int c = peekToken();
+            if (c != token) {
+                throw new IOException("Expected '" + token + "' but found " + describe(c));
+            }
+            peeked = -2;
+        }
+
+        /**
+         * Consumes the given token if it is next.
+         * @return true if it was consumed
+         */
+        boolean next(char token) throws IOException {
+            if (peekToken() == token) {
+                peeked = -2;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Checks whether the given token is next, without consuming it.
+         */
+        boolean peekIs(char token) throws IOException {
+            return peekToken() == token;
+        }
+
+        /**
+         * Reads a number, boolean or null literal as text.
+         */
+        String readLiteral() throws IOException {
+            StringBuilder sb = new StringBuilder(8);
+            int c = peekToken();
+            while (c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+                if (c < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+                sb.append((char) c);
+                peeked = -2;
+                c = peek();
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Reads a string literal, resolving escapes.
+         */
+        String readString() throws IOException {
+            expect('"');
+            StringBuilder sb = new StringBuilder(40);
+            while (true) {
+                int c = read();
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append((char) c);
+                    continue;
+                }
+                int escaped = read();
+                switch (escaped) {
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+                            if (digit < 0) {
+                                throw new IOException("Invalid unicode escape");
+                            }
+                            code = (code << 4) | digit;
+                        }
+                        sb.append((char) code);
+                    }
+                    default -> sb.append((char) escaped);
+                }
+            }
+        }
+
+        /**
+         * Skips any value: object, array, string or literal.
+         */
+        void skipValue() throws IOException {
+            int c = peekToken();
+            if (c == '"') {
+                readString();
+            } else if (c == '{' || c == '[') {
+                char closing = c == '{' ? '}' : ']';
+                peeked = -2;
+                if (next(closing)) {
+                    return;
+                }
+                do {
+                    if (closing == '}') {
+                        readString();
+                        expect(':');
+                    }
+                    skipValue();
+                } while (next(','));
+                expect(closing);
+            } else {
+                // Number, boolean or null
+                readLiteral();
+            }
+        }
+
+        private int peekToken() throws IOException {
+            int c = peek();
+            while (c >= 0 && Character.isWhitespace(c)) {
+                peeked = -2;
+                c = peek();
+            }
+            return c;
+        }
+
+        private int peek() throws IOException {
+            if (peeked == -2) {
+                peeked = in.read();
+            }
+            return peeked;
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            if (c < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            peeked = -2;
+            return c;
+        }
+
+        private static String describe(int c) {
+            return c < 0 ? "end of file" : "'" + (char) c + "'";
+        }
+    }
+}
@@ -0,0 +1,928 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * Sign table of one world kept off-heap, in a fixed-slot open-addressing hash table inside a
+ * memory-mapped file. Every change is written straight into the mapping, so the operating system
+ * persists it without a journal or region rewrites; a checkpoint only forces the mapping to disk.
+ * A crash of the server process loses nothing, a crash of the machine loses at most the changes
+ * since the last checkpoint.
+ *
+ * Slots are found by linear probing on the packed location, with backward-shift deletion, so
+ * {@link #contains} and {@link #adjacentSignMask} only read primitives from the mapping and never allocate.
+ * Records too large for a slot (more than {@value #INLINE_IDS} holograms, or long text) are kept on the
+ * heap and written to {@value #OVERFLOW_FILE_NAME} on checkpoint; their slot only marks them present.
+ * The chunk index used by chunk and box queries is rebuilt from the table when it is opened.
+ *
+ * When the load factor passes {@value #LOAD_FACTOR} the table is rehashed into a file twice the size,
+ * which only replaces the old file once it is complete.
+ *
+ * File layout (big-endian), named {@code signs.<slotCount>.table}:
+ * <pre>
+ * {@value #HEADER_BYTES}-byte header: int magic "QSMT", short version, int slotCount
+ * slotCount x {@value #SLOT_BYTES}-byte slot:
+ *   long location
+ *   byte state (0 empty, 1 record in the slot, 2 record in the overflow file)
+ *   byte hologramCount, byte facing, byte lineCount
+ *   {@value #INLINE_IDS} x (long msb, long lsb)
+ *   lineCount x (byte length, UTF-8), up to the end of the slot
+ * </pre>
+ * The magic is written last, so a table whose rehash was interrupted is never read.
+ *
+ * All methods are synchronized, except {@link #flush} and {@link #forEachChunk}, which only lock to
+ * capture what they need.
+ */
+class MappedSignTable implements SignTable {
+
+    private static final String TABLE_PREFIX = WorldShard.BASE_NAME + ".";
+    private static final String TABLE_SUFFIX = ".table";
+    private static final String OVERFLOW_FILE_NAME = WorldShard.BASE_NAME + ".overflow";
+
+    private static final int MAGIC = 0x51534D54; // "QSMT"
+    private static final short VERSION = 1;
+    private static final int OVERFLOW_MAGIC = 0x51534F56; // "QSOV"
+
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 192;
+    private static final int INITIAL_SLOTS = 1 << 12;
+
+    /**
+     * Largest table, so the whole mapping fits one buffer (about 1.6 GB, over five million signs).
+     */
+    private static final int MAX_SLOTS = 1 << 23;
+    private static final float LOAD_FACTOR = 0.7f;
+
+    /**
+     * Load factor a table at {@link #MAX_SLOTS} may fill up to before changes are refused.
+     */
+    private static final float MAX_LOAD_FACTOR = 0.95f;
+
+    /**
+     * Slots read at a time when streaming a table without mapping it.
+     */
+    private static final int READ_BATCH_SLOTS = 4096;
+
+    // Slot layout
+    private static final int LOCATION = 0;
+    private static final int STATE = 8;
+    private static final int HOLOGRAM_COUNT = 9;
+    private static final int FACING = 10;
+    private static final int LINE_COUNT = 11;
+    private static final int IDS = 12;
+    private static final int INLINE_IDS = 4;
+    private static final int TEXT = IDS + INLINE_IDS * 16;
+
+    private static final byte EMPTY = 0;
+    private static final byte INLINE = 1;
+    private static final byte OVERFLOW = 2;
+
+    private final String worldId;
+    private final Path directory;
+    private final SignChunkFilter filter;
+    private final HytaleLogger logger;
+
+    private Path file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slotCount;
+    private int mask;
+    private int size;
+
+    // Sorted locations of the signs of every chunk column with signs; arrays are replaced, never changed
+    private final LongObjectMap<long[]> chunkIndex = new LongObjectMap<>();
+
+    // Chunks the game has loaded
+    private final LongObjectMap<Boolean> loaded = new LongObjectMap<>();
+
+    // Records too large for their slot
+    private final LongObjectMap<SignRecord> overflow = new LongObjectMap<>();
+    private boolean overflowDirty;
+
+    /**
+     * Creates a table. Nothing is read until {@link #open()} is called.
+     * @param worldId The world ID
+     * @param directory The shard directory holding the table
+     * @param filter The shared chunk filter, told whenever a chunk gains its first or loses its last sign
+     * @param logger The logger instance
+     */
+    MappedSignTable(String worldId, Path directory, SignChunkFilter filter, HytaleLogger logger) {
+        this.worldId = worldId;
+        this.directory = directory;
+        this.filter = filter;
+        this.logger = logger;
+    }
+
+    /**
+     * Maps the newest complete table file, creating an empty one if there is none, and rebuilds the
+     * chunk index. Leftovers of an interrupted or superseded rehash are deleted.
+     * @throws IOException If the table or its overflow file cannot be read
+     */
+    synchronized void open() throws IOException {
+        Path newest = findTable(directory);
+        if (newest != null) {
+            map(newest);
+        } else {
+            create();
+        }
+        for (Path candidate : listTables(directory)) {
+            if (!candidate.equals(file) && readSlotCount(candidate) >= 0) {
+                deleteQuietly(candidate);
+            }
+        }
+        try {
+            readOverflow(directory.resolve(OVERFLOW_FILE_NAME), overflow);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        scan();
+    }
+
+    /**
+     * Checks whether a shard directory holds a table written by this engine.
+     * @param directory The shard directory
+     * @return true if a table file exists
+     */
+    static boolean exists(Path directory) {
+        return !listTables(directory).isEmpty();
+    }
+
+    /**
+     * Lists the files of this engine in a shard directory, so they can be moved aside after a migration.
+     * @param directory The shard directory
+     * @return The table and overflow files
+     */
+    static List<Path> listFiles(Path directory) {
+        List<Path> files = listTables(directory);
+        Path overflowFile = directory.resolve(OVERFLOW_FILE_NAME);
+        if (Files.exists(overflowFile)) {
+            files.add(overflowFile);
+        }
+        return files;
+    }
+
+    /**
+     * Reads every sign of a table without mapping it, so the files can be moved aside right after.
+     * @param directory The shard directory
+     * @param worldId The world ID handed to the consumer
+     * @param consumer Receives each sign entry
+     * @return The number of entries read
+     * @throws IOException If the table cannot be read
+     */
+    static int read(Path directory, String worldId, BinarySnapshot.EntryConsumer consumer) throws IOException {
+        Path table = findTable(directory);
+        if (table == null) {
+            return 0;
+        }
+        LongObjectMap<SignRecord> overflowRecords = new LongObjectMap<>();
+        readOverflow(directory.resolve(OVERFLOW_FILE_NAME), overflowRecords);
+
+        int entries = 0;
+        int slots = readSlotCount(table);
+        try (FileChannel in = FileChannel.open(table, StandardOpenOption.READ)) {
+            ByteBuffer batch = ByteBuffer.allocate(READ_BATCH_SLOTS * SLOT_BYTES);
+            for (int first = 0; first < slots; first += READ_BATCH_SLOTS) {
+                int count = Math.min(READ_BATCH_SLOTS, slots - first);
+                batch.clear().limit(count * SLOT_BYTES);
+                long position = HEADER_BYTES + (long) first * SLOT_BYTES;
+                while (batch.hasRemaining()) {
+                    int read = in.read(batch, position + batch.position());
+                    if (read < 0) {
+                        throw new IOException("Sign table " + table.getFileName() + " is truncated");
+                    }
+                }
+                for (int i = 0; i < count; i++) {
+                    int offset = i * SLOT_BYTES;
+                    byte state = batch.get(offset + STATE);
+                    long location = batch.getLong(offset + LOCATION);
+                    SignRecord record = state == INLINE ? decode(batch, offset)
+                        : state == OVERFLOW ? overflowRecords.get(location) : null;
+                    if (record != null) {
+                        consumer.accept(worldId, location, record);
+                        entries++;
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public String getWorldId() {
+        return worldId;
+    }
+
+    @Override
+    public synchronized void pageIn(long chunkKey) {
+        loaded.put(chunkKey, Boolean.TRUE);
+    }
+
+    @Override
+    public synchronized void pageOut(long chunkKey) {
+        loaded.remove(chunkKey);
+    }
+
+    @Override
+    public synchronized void add(long location, UUID entityUuid) {
+        SignRecord existing = get(location);
+        put(location, existing != null ? existing.withHologram(entityUuid) : SignRecord.ofHolograms(List.of(entityUuid)));
+    }
+
+    @Override
+    public synchronized void set(long location, SignRecord record) {
+        put(location, record);
+    }
+
+    /**
+     * Gets the sign at a location. Finding the slot does not allocate; the record is decoded from it.
+     * @param location The packed location
+     * @return The record, or null if no sign is tracked there
+     */
+    @Override
+    public synchronized SignRecord get(long location) {
+        int slot = probe(location);
+        return slot >= 0 ? recordAt(slot, location) : null;
+    }
+
+    @Override
+    public synchronized SignRecord remove(long location) {
+        int slot = probe(location);
+        if (slot < 0) {
+            return null;
+        }
+        SignRecord removed = recordAt(slot, location);
+        if (overflow.remove(location) != null) {
+            overflowDirty = true;
+        }
+        shiftBack(slot);
+        size--;
+        unindex(location);
+        return removed;
+    }
+
+    @Override
+    public synchronized void replayPut(long location, SignRecord record) {
+        put(location, record);
+    }
+
+    @Override
+    public synchronized void replayRemove(long location) {
+        remove(location);
+    }
+
+    @Override
+    public synchronized boolean contains(long location) {
+        return probe(location) >= 0;
+    }
+
+    @Override
+    public synchronized int adjacentSignMask(int x, int y, int z) {
+        int mask = 0;
+        int[][] offsets = SignLocation.ADJACENT_OFFSETS;
+        for (int i = 0; i < offsets.length; i++) {
+            if (probe(SignLocation.pack(x + offsets[i][0], y, z + offsets[i][1])) >= 0) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public synchronized long[] signsInChunk(int chunkX, int chunkZ) {
+        long[] signs = chunkIndex.get(SignLocation.chunkKey(chunkX, chunkZ));
+        return signs != null ? signs.clone() : new long[0];
+    }
+
+    @Override
+    public synchronized long[] signsInBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        int minChunkX = minX >> SignLocation.CHUNK_SHIFT;
+        int maxChunkX = maxX >> SignLocation.CHUNK_SHIFT;
+        int minChunkZ = minZ >> SignLocation.CHUNK_SHIFT;
+        int maxChunkZ = maxZ >> SignLocation.CHUNK_SHIFT;
+        long columns = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+
+        Locations out = new Locations();
+        if (columns > chunkIndex.size()) {
+            chunkIndex.forEach((chunkKey, signs) -> out.addInBox(signs, minX, minY, minZ, maxX, maxY, maxZ));
+        } else {
+            for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+                for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                    long[] signs = chunkIndex.get(SignLocation.chunkKey(cx, cz));
+                    if (signs != null) {
+                        out.addInBox(signs, minX, minY, minZ, maxX, maxY, maxZ);
+                    }
+                }
+            }
+        }
+        return out.toArray();
+    }
+
+    @Override
+    public synchronized long[] loadedLocations() {
+        Locations out = new Locations();
+        loaded.forEach((chunkKey, value) -> {
+            long[] signs = chunkIndex.get(chunkKey);
+            if (signs != null) {
+                out.addAll(signs);
+            }
+        });
+        return out.toArray();
+    }
+
+    /**
+     * Gets the number of tracked signs. Every sign of the world is held in the mapping.
+     * @return The sign count
+     */
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void forEachResident(LongObjectMap.EntryConsumer<SignRecord> consumer) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (buffer.get(offsetOf(slot) + STATE) != EMPTY) {
+                long location = buffer.getLong(offsetOf(slot) + LOCATION);
+                SignRecord record = recordAt(slot, location);
+                if (record != null) {
+                    consumer.accept(location, record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visits every chunk with tracked signs. Each chunk is read under the lock on its own, so writers can
+     * stream a large world without blocking the world thread for long; chunks changed while the walk is
+     * in progress may be seen before or after the change.
+     * @param visitor Receives each chunk; it must not modify the bucket
+     * @throws IOException If the visitor fails
+     */
+    @Override
+    public void forEachChunk(ChunkVisitor visitor) throws IOException {
+        long[] chunkKeys;
+        synchronized (this) {
+            chunkKeys = chunkIndex.keys();
+        }
+        for (long chunkKey : chunkKeys) {
+            ChunkBucket bucket = new ChunkBucket();
+            synchronized (this) {
+                long[] signs = chunkIndex.get(chunkKey);
+                if (signs == null) {
+                    continue;
+                }
+                for (long location : signs) {
+                    SignRecord record = get(location);
+                    if (record != null) {
+                        bucket.put(location, record);
+                    }
+                }
+            }
+            visitor.visit(bucket);
+        }
+    }
+
+    /**
+     * Forces the mapping to disk and writes the overflow records if they changed.
+     * The mapping is forced outside the lock, so the world thread keeps changing signs meanwhile.
+     * @throws IOException If the overflow file cannot be written; it is retried next time
+     */
+    @Override
+    public void flush() throws IOException {
+        MappedByteBuffer mapping;
+        LongObjectMap<SignRecord> overflowCopy = null;
+        synchronized (this) {
+            mapping = buffer;
+            if (overflowDirty) {
+                overflowCopy = overflow.copy();
+                overflowDirty = false;
+            }
+        }
+        mapping.force();
+        if (overflowCopy != null) {
+            try {
+                writeOverflow(directory.resolve(OVERFLOW_FILE_NAME), overflowCopy);
+            } catch (IOException e) {
+                synchronized (this) {
+                    overflowDirty = true;
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void detach() {
+        chunkIndex.forEach((chunkKey, signs) -> filter.remove(chunkKey));
+        chunkIndex.clear();
+        loaded.clear();
+        overflow.clear();
+        size = 0;
+        try {
+            channel.close(); // The mapping stays valid until the buffer is collected
+        } catch (IOException e) {
+            logger.atWarning().log("Failed to close sign table of world " + worldId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the slot of a location.
+     * @return The slot, or {@code -slot - 1} of the empty slot where it would go
+     */
+    private int probe(long location) {
+        int slot = LongObjectMap.mix(location) & mask;
+        while (true) {
+            int offset = offsetOf(slot);
+            if (buffer.get(offset + STATE) == EMPTY) {
+                return -slot - 1;
+            }
+            if (buffer.getLong(offset + LOCATION) == location) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Stores a record at a location, replacing any existing entry, growing the table first if needed.
+     */
+    private void put(long location, SignRecord record) {
+        int slot = probe(location);
+        if (slot >= 0) {
+            writeSlot(slot, location, record);
+            return;
+        }
+        if (size + 1 > slotCount * LOAD_FACTOR) {
+            ensureCapacity();
+            slot = probe(location);
+        }
+        writeSlot(-slot - 1, location, record);
+        size++;
+        index(location);
+    }
+
+    /**
+     * Writes a record into a slot, or into the overflow records if it does not fit. The state is written
+     * last, so a slot never looks occupied before its content is in place.
+     */
+    private void writeSlot(int slot, long location, SignRecord record) {
+        int offset = offsetOf(slot);
+        byte[][] lines = inlineLines(record);
+        buffer.putLong(offset + LOCATION, location);
+        if (lines == null) {
+            buffer.put(offset + HOLOGRAM_COUNT, (byte) 0);
+            buffer.put(offset + LINE_COUNT, (byte) 0);
+            overflow.put(location, record);
+            overflowDirty = true;
+            buffer.put(offset + STATE, OVERFLOW);
+            return;
+        }
+
+        int count = record.getHologramCount();
+        buffer.put(offset + HOLOGRAM_COUNT, (byte) count);
+        buffer.put(offset + FACING, record.getFacing());
+        buffer.put(offset + LINE_COUNT, (byte) lines.length);
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(offset + IDS + i * 16, record.msbAt(i));
+            buffer.putLong(offset + IDS + i * 16 + 8, record.lsbAt(i));
+        }
+        int at = offset + TEXT;
+        for (byte[] line : lines) {
+            buffer.put(at++, (byte) line.length);
+            buffer.put(at, line);
+            at += line.length;
+        }
+        if (overflow.remove(location) != null) {
+            overflowDirty = true;
+        }
+        buffer.put(offset + STATE, INLINE);
+    }
+
+    /**
+     * Reads the record of an occupied slot.
+     */
+    private SignRecord recordAt(int slot, long location) {
+        int offset = offsetOf(slot);
+        return buffer.get(offset + STATE) == OVERFLOW ? overflow.get(location) : decode(buffer, offset);
+    }
+
+    /**
+     * Closes the gap left by a removal by moving later slots of the probe chain back.
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int offset = offsetOf(slot);
+            if (buffer.get(offset + STATE) == EMPTY) {
+                break;
+            }
+            int home = LongObjectMap.mix(buffer.getLong(offset + LOCATION)) & mask;
+            // Move the slot if its home slot is not cyclically within (gap, slot]
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                buffer.put(offsetOf(gap), buffer, offset, SLOT_BYTES);
+                gap = slot;
+            }
+        }
+        buffer.put(offsetOf(gap) + STATE, EMPTY);
+    }
+
+    /**
+     * Doubles the table if it may still grow, and refuses the change once a full-size table is full.
+     */
+    private void ensureCapacity() {
+        if (slotCount < MAX_SLOTS) {
+            try {
+                grow();
+                return;
+            } catch (IOException e) {
+                logger.atSevere().log("Failed to grow sign table of world " + worldId + ": " + e.getMessage());
+            }
+        }
+        if (size + 1 > slotCount * MAX_LOAD_FACTOR) {
+            throw new IllegalStateException("Sign table of world " + worldId + " is full (" + size + " signs)");
+        }
+    }
+
+    /**
+     * Rehashes every slot into a new file twice the size, seals it and then switches to it.
+     * The old file is deleted where the platform allows it while still mapped, and otherwise on the next open.
+     */
+    private void grow() throws IOException {
+        int newSlots = slotCount << 1;
+        Path newFile = tableFile(newSlots);
+        FileChannel newChannel = FileChannel.open(newFile,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer newBuffer;
+        try {
+            newBuffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, tableBytes(newSlots));
+            writeHeader(newBuffer, newSlots);
+            int newMask = newSlots - 1;
+            for (int slot = 0; slot < slotCount; slot++) {
+                int offset = offsetOf(slot);
+                if (buffer.get(offset + STATE) == EMPTY) {
+                    continue;
+                }
+                int target = LongObjectMap.mix(buffer.getLong(offset + LOCATION)) & newMask;
+                while (newBuffer.get(offsetOf(target) + STATE) != EMPTY) {
+                    target = (target + 1) & newMask;
+                }
+                newBuffer.put(offsetOf(target), buffer, offset, SLOT_BYTES);
+            }
+            seal(newBuffer);
+        } catch (IOException | RuntimeException e) {
+            newChannel.close();
+            deleteQuietly(newFile);
+            throw e;
+        }
+
+        Path oldFile = file;
+        FileChannel oldChannel = channel;
+        file = newFile;
+        channel = newChannel;
+        buffer = newBuffer;
+        slotCount = newSlots;
+        mask = newSlots - 1;
+        oldChannel.close();
+        deleteQuietly(oldFile);
+        logger.atInfo().log("Grew sign table of world " + worldId + " to " + newSlots + " slots");
+    }
+
+    /**
+     * Creates and maps an empty table.
+     */
+    private void create() throws IOException {
+        Files.createDirectories(directory);
+        Path newFile = tableFile(INITIAL_SLOTS);
+        channel = FileChannel.open(newFile,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, tableBytes(INITIAL_SLOTS));
+        writeHeader(buffer, INITIAL_SLOTS);
+        seal(buffer);
+        file = newFile;
+        slotCount = INITIAL_SLOTS;
+        mask = INITIAL_SLOTS - 1;
+    }
+
+    /**
+     * Maps an existing, complete table.
+     */
+    private void map(Path table) throws IOException {
+        int slots = readSlotCount(table);
+        channel = FileChannel.open(table, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, tableBytes(slots));
+        file = table;
+        slotCount = slots;
+        mask = slots - 1;
+    }
+
+    /**
+     * Counts the signs and rebuilds the chunk index from the mapping. Slots whose record should be in the
+     * overflow file but is not (the server stopped before the overflow file was written) are dropped,
+     * as are overflow records no slot refers to.
+     */
+    private void scan() {
+        Locations lost = new Locations();
+        for (int slot = 0; slot < slotCount; slot++) {
+            int offset = offsetOf(slot);
+            byte state = buffer.get(offset + STATE);
+            if (state == EMPTY) {
+                continue;
+            }
+            long location = buffer.getLong(offset + LOCATION);
+            if (state != INLINE && (state != OVERFLOW || !overflow.containsKey(location))) {
+                lost.add(location);
+                continue;
+            }
+            size++;
+            index(location);
+        }
+        for (long location : lost.toArray()) {
+            shiftBack(probe(location));
+        }
+        for (long location : overflow.keys()) {
+            int slot = probe(location);
+            if (slot < 0 || buffer.get(offsetOf(slot) + STATE) != OVERFLOW) {
+                overflow.remove(location);
+                overflowDirty = true;
+            }
+        }
+        if (lost.size() > 0) {
+            logger.atWarning().log("Dropped " + lost.size() + " damaged entries from the sign table of world " + worldId);
+        }
+    }
+
+    /**
+     * Adds a location to the chunk index.
+     */
+    private void index(long location) {
+        long chunkKey = SignLocation.chunkKeyOf(location);
+        long[] signs = chunkIndex.get(chunkKey);
+        if (signs == null) {
+            chunkIndex.put(chunkKey, new long[] {location});
+            filter.add(chunkKey);
+            return;
+        }
+        int index = Arrays.binarySearch(signs, location);
+        if (index >= 0) {
+            return;
+        }
+        int insertAt = -index - 1;
+        long[] grown = new long[signs.length + 1];
+        System.arraycopy(signs, 0, grown, 0, insertAt);
+        grown[insertAt] = location;
+        System.arraycopy(signs, insertAt, grown, insertAt + 1, signs.length - insertAt);
+        chunkIndex.put(chunkKey, grown);
+    }
+
+    /**
+     * Removes a location from the chunk index.
+     */
+    private void unindex(long location) {
+        long chunkKey = SignLocation.chunkKeyOf(location);
+        long[] signs = chunkIndex.get(chunkKey);
+        int index = signs != null ? Arrays.binarySearch(signs, location) : -1;
+        if (index < 0) {
+            return;
+        }
+        if (signs.length == 1) {
+            chunkIndex.remove(chunkKey);
+            filter.remove(chunkKey);
+            return;
+        }
+        long[] shrunk = new long[signs.length - 1];
+        System.arraycopy(signs, 0, shrunk, 0, index);
+        System.arraycopy(signs, index + 1, shrunk, index, shrunk.length - index);
+        chunkIndex.put(chunkKey, shrunk);
+    }
+
+    private Path tableFile(int slots) {
+        return directory.resolve(TABLE_PREFIX + slots + TABLE_SUFFIX);
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.atWarning().log("Could not delete old sign table " + path.getFileName() + " of world " + worldId
+                + " yet, will retry on next start: " + e.getMessage());
+        }
+    }
+
+    private static int offsetOf(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private static long tableBytes(int slots) {
+        return HEADER_BYTES + (long) slots * SLOT_BYTES;
+    }
+
+    private static void writeHeader(ByteBuffer header, int slots) {
+        header.putShort(4, VERSION);
+        header.putInt(6, slots);
+    }
+
+    /**
+     * Forces a filled table to disk and only then marks it complete.
+     */
+    private static void seal(MappedByteBuffer table) {
+        table.force();
+        table.putInt(0, MAGIC);
+        table.force();
+    }
+
+    /**
+     * Encodes the text lines of a record that fits a slot.
+     * @return The encoded lines, or null if the record must go to the overflow records
+     */
+    private static byte[][] inlineLines(SignRecord record) {
+        List<String> lines = record.getLines();
+        if (record.getHologramCount() > INLINE_IDS || lines.size() > 255) {
+            return null;
+        }
+        byte[][] encoded = new byte[lines.size()][];
+        int end = TEXT;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = lines.get(i).getBytes(StandardCharsets.UTF_8);
+            end += 1 + encoded[i].length;
+            if (encoded[i].length > 255 || end > SLOT_BYTES) {
+                return null;
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Decodes the record of a slot holding it inline.
+     */
+    private static SignRecord decode(ByteBuffer buf, int offset) {
+        int count = Math.min(buf.get(offset + HOLOGRAM_COUNT) & 0xFF, INLINE_IDS);
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(new UUID(buf.getLong(offset + IDS + i * 16), buf.getLong(offset + IDS + i * 16 + 8)));
+        }
+        byte facing = buf.get(offset + FACING);
+        int lineCount = buf.get(offset + LINE_COUNT) & 0xFF;
+        List<String> lines = new ArrayList<>(lineCount);
+        int at = offset + TEXT;
+        int end = offset + SLOT_BYTES;
+        for (int i = 0; i < lineCount && at < end; i++) {
+            int length = Math.min(buf.get(at++) & 0xFF, end - at);
+            byte[] bytes = new byte[length];
+            buf.get(at, bytes);
+            at += length;
+            lines.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return new SignRecord(ids, lines, facing);
+    }
+
+    /**
+     * Finds the complete table with the most slots, which is always the newest since tables only grow.
+     * @return The table file, or null if there is none
+     * @throws IOException If the only tables present are in an unsupported version
+     */
+    private static Path findTable(Path directory) throws IOException {
+        Path newest = null;
+        int newestSlots = 0;
+        boolean unsupported = false;
+        for (Path candidate : listTables(directory)) {
+            int slots = readSlotCount(candidate);
+            unsupported |= slots < 0;
+            if (slots > newestSlots) {
+                newest = candidate;
+                newestSlots = slots;
+            }
+        }
+        if (newest == null && unsupported) {
+            throw new IOException("Sign table in " + directory.getFileName() + " has an unsupported version");
+        }
+        return newest;
+    }
+
+    /**
+     * Reads a table's slot count from its header.
+     * @return The slot count, 0 if the table was never completed, or -1 if it cannot be read
+     */
+    private static int readSlotCount(Path table) {
+        try (FileChannel in = FileChannel.open(table, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && in.read(header) >= 0) {
+                // Keep reading
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+                return 0;
+            }
+            int slots = header.getInt(6);
+            if (header.getShort(4) != VERSION || Integer.bitCount(slots) != 1 || slots > MAX_SLOTS) {
+                return -1;
+            }
+            return in.size() >= tableBytes(slots) ? slots : 0;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static List<Path> listTables(Path directory) {
+        List<Path> tables = new ArrayList<>(1);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, TABLE_PREFIX + "*" + TABLE_SUFFIX)) {
+            for (Path table : files) {
+                tables.add(table);
+            }
+        } catch (IOException e) {
+            // No shard folder yet
+        }
+        return tables;
+    }
+
+    /**
+     * Reads the overflow records. Layout: {@code int magic, int count, count x (long location, encoded SignRecord)}.
+     */
+    private static void readOverflow(Path overflowFile, LongObjectMap<SignRecord> into) throws IOException {
+        if (!Files.exists(overflowFile)) {
+            return;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(overflowFile));
+        try {
+            if (buf.getInt() != OVERFLOW_MAGIC) {
+                throw new IOException("Not a sign table overflow file");
+            }
+            int count = buf.getInt();
+            for (int i = 0; i < count; i++) {
+                long location = buf.getLong();
+                into.put(location, SignRecord.readFrom(buf, true));
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Sign table overflow file " + overflowFile.getFileName() + " is damaged", e);
+        }
+    }
+
+    private static void writeOverflow(Path overflowFile, LongObjectMap<SignRecord> records) throws IOException {
+        SnapshotFiles.writeAtomically(overflowFile, out -> {
+            ByteBuffer header = ByteBuffer.allocate(8).putInt(OVERFLOW_MAGIC).putInt(records.size());
+            out.write(header.array());
+            for (long location : records.keys()) {
+                SignRecord record = records.get(location);
+                ByteBuffer entry = ByteBuffer.allocate(8 + record.encodedSize());
+                entry.putLong(location);
+                record.writeTo(entry);
+                out.write(entry.array());
+            }
+        });
+    }
+
+    /**
+     * A growable list of packed locations.
+     */
+    private static final class Locations {
+        private long[] out = new long[8];
+        private int size;
+
+        void add(long location) {
+            if (size == out.length) {
+                out = Arrays.copyOf(out, size << 1);
+            }
+            out[size++] = location;
+        }
+
+        void addAll(long[] locations) {
+            for (long location : locations) {
+                add(location);
+            }
+        }
+
+        void addInBox(long[] locations, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            for (long location : locations) {
+                int x = SignLocation.unpackX(location);
+                int y = SignLocation.unpackY(location);
+                int z = SignLocation.unpackZ(location);
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+                    add(location);
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(out, size);
+        }
+    }
+}
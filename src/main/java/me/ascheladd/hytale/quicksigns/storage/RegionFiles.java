@@ -0,0 +1,288 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Region-style on-disk layout of one world's signs: each file holds the signs of a square of
+ * {@value #REGION_CHUNKS} x {@value #REGION_CHUNKS} chunk columns, with an index so a single chunk
+ * can be read with two small positional reads. Regions without signs have no file at all.
+ *
+ * File layout (big-endian), named {@code r.<regionX>.<regionZ>.bin}:
+ * <pre>
+ * int   magic "QSRG"
+ * short version
+ * int   chunkCount
+ * chunkCount x (long chunkKey, int offset, int length, int crc32), sorted by chunkKey
+ * int   crc32 of everything above
+ * per chunk at its offset: int signCount, then per sign:
+ *   long location, encoded {@link SignRecord}
+ * </pre>
+ * Version 1 files, written before sign text was stored, hold only the UUID part of each record
+ * and are still read; they are rewritten in the current version the next time their region changes.
+ *
+ * Files are replaced atomically, so readers always see a complete region. Only the owning
+ * shard's save thread writes regions.
+ */
+class RegionFiles {
+
+    /**
+     * Chunk columns per region side.
+     */
+    static final int REGION_CHUNKS = 32;
+
+    private static final int REGION_SHIFT = 5;
+    private static final int MAGIC = 0x51535247; // "QSRG"
+    private static final short VERSION = 2;
+    private static final int PREFIX_BYTES = 4 + 2 + 4;
+    private static final int INDEX_ENTRY_BYTES = 8 + 4 + 4 + 4;
+
+    private final Path directory;
+
+    /**
+     * Creates the region store of a shard.
+     * @param directory The folder holding the region files
+     */
+    RegionFiles(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the key of the region containing a chunk column.
+     * @param chunkKey The chunk key
+     * @return The region key, packed like a chunk key
+     */
+    static long regionKeyOf(long chunkKey) {
+        int chunkX = (int) (chunkKey >> 32);
+        int chunkZ = (int) chunkKey;
+        return SignLocation.chunkKey(chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+    }
+
+    /**
+     * Checks whether any region file exists.
+     * @return true if the folder holds at least one region
+     */
+    boolean isEmpty() {
+        return listRegions().length == 0;
+    }
+
+    /**
+     * Reads the signs of one chunk column.
+     * @param chunkKey The chunk key
+     * @return The chunk's signs, or null if it has none on disk
+     * @throws IOException If the region file is damaged or cannot be read
+     */
+    ChunkBucket readChunk(long chunkKey) throws IOException {
+        Path file = regionFile(regionKeyOf(chunkKey));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer prefix = readFully(channel, 0, PREFIX_BYTES);
+            int chunkCount = checkPrefix(prefix, file);
+            boolean withText = prefix.getShort(4) >= 2;
+            ByteBuffer index = readFully(channel, PREFIX_BYTES, chunkCount * INDEX_ENTRY_BYTES + 4);
+            checkIndex(prefix, index, chunkCount, file);
+
+            int low = 0;
+            int high = chunkCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long key = index.getLong(mid * INDEX_ENTRY_BYTES);
+                if (key < chunkKey) {
+                    low = mid + 1;
+                } else if (key > chunkKey) {
+                    high = mid - 1;
+                } else {
+                    int entry = mid * INDEX_ENTRY_BYTES;
+                    return readData(channel, index.getInt(entry + 8), index.getInt(entry + 12), index.getInt(entry + 16), withText, file);
+                }
+            }
+            return null;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads every chunk of a region.
+     * @param regionKey The region key
+     * @return The chunks by chunk key, empty if the region has no file
+     * @throws IOException If the region file is damaged or cannot be read
+     */
+    LongObjectMap<ChunkBucket> readRegion(long regionKey) throws IOException {
+        LongObjectMap<ChunkBucket> chunks = new LongObjectMap<>();
+        Path file = regionFile(regionKey);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer prefix = readFully(channel, 0, PREFIX_BYTES);
+            int chunkCount = checkPrefix(prefix, file);
+            boolean withText = prefix.getShort(4) >= 2;
+            ByteBuffer index = readFully(channel, PREFIX_BYTES, chunkCount * INDEX_ENTRY_BYTES + 4);
+            checkIndex(prefix, index, chunkCount, file);
+            for (int i = 0; i < chunkCount; i++) {
+                int entry = i * INDEX_ENTRY_BYTES;
+                chunks.put(index.getLong(entry),
+                    readData(channel, index.getInt(entry + 8), index.getInt(entry + 12), index.getInt(entry + 16), withText, file));
+            }
+        } catch (NoSuchFileException e) {
+            // No signs in this region
+        }
+        return chunks;
+    }
+
+    /**
+     * Replaces a region file with the given chunks, or deletes it if none has signs.
+     * @param regionKey The region key
+     * @param chunks The region's chunks by chunk key; empty buckets are skipped
+     * @throws IOException If writing fails; the previous file is left untouched
+     */
+    void writeRegion(long regionKey, LongObjectMap<ChunkBucket> chunks) throws IOException {
+        long[] keys = new long[chunks.size()];
+        int[] count = {0};
+        chunks.forEach((chunkKey, bucket) -> {
+            if (bucket.size() > 0) {
+                keys[count[0]++] = chunkKey;
+            }
+        });
+        Path file = regionFile(regionKey);
+        if (count[0] == 0) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Arrays.sort(keys, 0, count[0]);
+
+        byte[][] payloads = new byte[count[0]][];
+        for (int i = 0; i < count[0]; i++) {
+            payloads[i] = encode(chunks.get(keys[i]));
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(PREFIX_BYTES + count[0] * INDEX_ENTRY_BYTES + 4);
+        header.putInt(MAGIC).putShort(VERSION).putInt(count[0]);
+        int offset = header.capacity();
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < count[0]; i++) {
+            crc.reset();
+            crc.update(payloads[i]);
+            header.putLong(keys[i]).putInt(offset).putInt(payloads[i].length).putInt((int) crc.getValue());
+            offset += payloads[i].length;
+        }
+        crc.reset();
+        crc.update(header.array(), 0, header.position());
+        header.putInt((int) crc.getValue());
+
+        Files.createDirectories(directory);
+        SnapshotFiles.writeAtomically(file, out -> {
+            out.write(header.array());
+            for (byte[] payload : payloads) {
+                out.write(payload);
+            }
+        });
+    }
+
+    /**
+     * Lists the keys of all regions that have a file.
+     * @return The region keys
+     */
+    long[] listRegions() {
+        List<Long> keys = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "r.*.bin")) {
+            for (Path file : files) {
+                String[] parts = file.getFileName().toString().split("\\.");
+                if (parts.length != 4) {
+                    continue;
+                }
+                try {
+                    keys.add(SignLocation.chunkKey(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                } catch (NumberFormatException e) {
+                    // Not a region file
+                }
+            }
+        } catch (IOException e) {
+            return new long[0]; // No region folder yet
+        }
+        long[] out = new long[keys.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = keys.get(i);
+        }
+        return out;
+    }
+
+    private Path regionFile(long regionKey) {
+        return directory.resolve("r." + (int) (regionKey >> 32) + "." + (int) regionKey + ".bin");
+    }
+
+    private static byte[] encode(ChunkBucket bucket) {
+        int size = 4;
+        for (int i = 0; i < bucket.size(); i++) {
+            size += 8 + bucket.valueAt(i).encodedSize();
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(bucket.size());
+        for (int i = 0; i < bucket.size(); i++) {
+            buf.putLong(bucket.locationAt(i));
+            bucket.valueAt(i).writeTo(buf);
+        }
+        return buf.array();
+    }
+
+    private static ChunkBucket readData(FileChannel channel, int offset, int length, int expectedCrc, boolean withText, Path file) throws IOException {
+        ByteBuffer data = readFully(channel, offset, length);
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), 0, length);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Chunk checksum mismatch in " + file.getFileName());
+        }
+        ChunkBucket bucket = new ChunkBucket();
+        try {
+            int signCount = data.getInt();
+            for (int s = 0; s < signCount; s++) {
+                long location = data.getLong();
+                bucket.put(location, SignRecord.readFrom(data, withText));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated chunk in " + file.getFileName(), e);
+        }
+        return bucket;
+    }
+
+    private static int checkPrefix(ByteBuffer prefix, Path file) throws IOException {
+        if (prefix.getInt(0) != MAGIC) {
+            throw new IOException("Not a sign region file: " + file.getFileName());
+        }
+        if (prefix.getShort(4) != 1 && prefix.getShort(4) != VERSION) {
+            throw new IOException("Unsupported region version " + prefix.getShort(4) + " in " + file.getFileName());
+        }
+        int chunkCount = prefix.getInt(6);
+        if (chunkCount < 0 || chunkCount > REGION_CHUNKS * REGION_CHUNKS) {
+            throw new IOException("Invalid chunk count in " + file.getFileName());
+        }
+        return chunkCount;
+    }
+
+    private static void checkIndex(ByteBuffer prefix, ByteBuffer index, int chunkCount, Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(prefix.array(), 0, PREFIX_BYTES);
+        crc.update(index.array(), 0, chunkCount * INDEX_ENTRY_BYTES);
+        if ((int) crc.getValue() != index.getInt(chunkCount * INDEX_ENTRY_BYTES)) {
+            throw new IOException("Index checksum mismatch in " + file.getFileName());
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Truncated region file");
+            }
+        }
+        return buf.flip();
+    }
+}
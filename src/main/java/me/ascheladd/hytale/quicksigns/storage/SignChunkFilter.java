@@ -0,0 +1,189 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counting Bloom filter over chunk columns that contain at least one tracked sign.
+ * Chunk coordinates are hashed without the world, so a query needs no world lookup at all:
+ * a negative answer means no world has a tracked sign in that chunk column.
+ *
+ * Reads are two bit tests on a {@code long[]} and never allocate or lock. Updates are
+ * synchronized and keep a counter per slot, so chunks can be removed again.
+ * The filter doubles in size (rebuilt from its exact set of occupied chunks) when it
+ * gets too full for a useful false positive rate.
+ */
+class SignChunkFilter {
+
+    private static final int INITIAL_BITS = 1 << 14;
+    private static final int MAX_BITS = 1 << 26;
+
+    /**
+     * Grow once occupied chunks exceed bits / LOAD_DIVISOR (about 1.5% false positives with two hashes).
+     */
+    private static final int LOAD_DIVISOR = 16;
+
+    private static final int CHUNK_MASK = (1 << SignLocation.CHUNK_SHIFT) - 1;
+
+    private volatile Table table;
+
+    // Chunk key -> number of worlds with signs in that chunk column; exact, used for rebuilds
+    private final LongObjectMap<int[]> occupied = new LongObjectMap<>();
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+
+    /**
+     * Creates an empty filter.
+     */
+    SignChunkFilter() {
+        this.table = new Table(INITIAL_BITS);
+    }
+
+    /**
+     * Checks whether a tracked sign might exist at a block or one of its horizontal neighbours,
+     * counting the outcome for {@link #getQueryCount()} and {@link #getNegativeCount()}.
+     * @param x The block x coordinate
+     * @param z The block z coordinate
+     * @return false if no tracked sign can be there, true if one might
+     */
+    boolean mightContainNear(int x, int z) {
+        queries.increment();
+        Table t = table;
+        int chunkX = x >> SignLocation.CHUNK_SHIFT;
+        int chunkZ = z >> SignLocation.CHUNK_SHIFT;
+        int localX = x & CHUNK_MASK;
+        int localZ = z & CHUNK_MASK;
+        // Neighbours only leave the home chunk when the block sits on its border
+        boolean result = t.test(SignLocation.chunkKey(chunkX, chunkZ))
+            || localX == CHUNK_MASK && t.test(SignLocation.chunkKey(chunkX + 1, chunkZ))
+            || localX == 0 && t.test(SignLocation.chunkKey(chunkX - 1, chunkZ))
+            || localZ == CHUNK_MASK && t.test(SignLocation.chunkKey(chunkX, chunkZ + 1))
+            || localZ == 0 && t.test(SignLocation.chunkKey(chunkX, chunkZ - 1));
+        if (!result) {
+            negatives.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Records that a chunk column gained its first tracked sign in a world.
+     * @param chunkKey The chunk key
+     */
+    synchronized void add(long chunkKey) {
+        int[] worldCount = occupied.get(chunkKey);
+        if (worldCount != null) {
+            worldCount[0]++;
+            return;
+        }
+        occupied.put(chunkKey, new int[] {1});
+        Table t = table;
+        if (occupied.size() > t.bits / LOAD_DIVISOR && t.bits < MAX_BITS) {
+            rebuild(t.bits << 1);
+        } else {
+            t.add(chunkKey);
+        }
+    }
+
+    /**
+     * Records that a chunk column lost its last tracked sign in a world.
+     * @param chunkKey The chunk key
+     */
+    synchronized void remove(long chunkKey) {
+        int[] worldCount = occupied.get(chunkKey);
+        if (worldCount == null) {
+            return;
+        }
+        if (--worldCount[0] == 0) {
+            occupied.remove(chunkKey);
+            table.remove(chunkKey);
+        }
+    }
+
+    /**
+     * Gets how many neighbourhood queries were made.
+     * @return The query count
+     */
+    long getQueryCount() {
+        return queries.sum();
+    }
+
+    /**
+     * Gets how many neighbourhood queries were answered negatively (the fast path).
+     * @return The negative answer count
+     */
+    long getNegativeCount() {
+        return negatives.sum();
+    }
+
+    /**
+     * Gets the current filter size.
+     * @return The number of bits
+     */
+    int getBitCount() {
+        return table.bits;
+    }
+
+    /**
+     * Replaces the table with a larger one populated from every occupied chunk.
+     */
+    private void rebuild(int bits) {
+        Table rebuilt = new Table(bits);
+        occupied.forEach((chunkKey, worldCount) -> rebuilt.add(chunkKey));
+        table = rebuilt;
+    }
+
+    /**
+     * Bit array for reads plus per-slot counters for removals.
+     */
+    private static final class Table {
+        private final int bits;
+        private final int mask;
+        private final long[] words;
+        private final int[] counts;
+
+        Table(int bits) {
+            this.bits = bits;
+            this.mask = bits - 1;
+            this.words = new long[bits >>> 6];
+            this.counts = new int[bits];
+        }
+
+        boolean test(long chunkKey) {
+            long h = hash(chunkKey);
+            int a = (int) h & mask;
+            int b = (int) (h >>> 32) & mask;
+            return (words[a >>> 6] & (1L << a)) != 0 && (words[b >>> 6] & (1L << b)) != 0;
+        }
+
+        void add(long chunkKey) {
+            long h = hash(chunkKey);
+            increment((int) h & mask);
+            increment((int) (h >>> 32) & mask);
+        }
+
+        void remove(long chunkKey) {
+            long h = hash(chunkKey);
+            decrement((int) h & mask);
+            decrement((int) (h >>> 32) & mask);
+        }
+
+        private void increment(int slot) {
+            if (counts[slot]++ == 0) {
+                words[slot >>> 6] |= 1L << slot;
+            }
+        }
+
+        private void decrement(int slot) {
+            if (counts[slot] > 0 && --counts[slot] == 0) {
+                words[slot >>> 6] &= ~(1L << slot);
+            }
+        }
+
+        private static long hash(long key) {
+            // SplitMix64 finalizer
+            key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+            key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+            return key ^ (key >>> 31);
+        }
+    }
+}
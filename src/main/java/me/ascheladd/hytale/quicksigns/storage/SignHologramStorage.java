@@ -3,52 +3,124 @@ package me.ascheladd.hytale.quicksigns.storage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
-import org.bson.BsonDocument;
-
-import com.hypixel.hytale.codec.ExtraInfo;
 import com.hypixel.hytale.logger.HytaleLogger;
 
 /**
- * Manages persistent storage of sign hologram mappings using JSON.
- * Stores the relationship between sign positions and their hoHytale's Codec system.
+ * Manages persistent storage of sign hologram mappings.
  * Stores the relationship between sign positions and their hologram entity UUIDs.
  * 
- * Uses BuilderCodec with MapCodec for type-safe JSON serialization.
+ * Each world is persisted as its own shard ({@link WorldShard}) under {@code worlds/<world>/}, holding a
+ * snapshot and a journal. A shard is loaded in the background when its world is added and flushed and
+ * unloaded when the world is removed, so memory and startup time track the worlds that are actually active.
+ * Changing a world whose shard is not loaded yet loads it on the spot; queries simply see no signs until then.
+ * 
+ * Within a shard, signs live in region files ({@link RegionFiles}) and only the chunks the game has loaded
+ * are resident: a chunk is paged in when it loads and paged out, once persisted, when it unloads, so memory
+ * is bounded by the loaded area rather than by every sign ever placed. Queries for other chunks fall
+ * through to disk. Alternatively, the mapped engine ({@link MappedSignTable}, chosen with the constructor's engine name)
+ * keeps every sign of a world off-heap in a memory-mapped hash table that persists without region rewrites,
+ * and the SQL engine ({@link SqlSignTable}) keeps them in an embedded SQLite database with indexed columns.
+ * Callers read and write signs through the {@link SignStorage} interface, so the engine behind it can change
+ * freely; statistics such as the chunk filter counts are only offered here.
+ * The original JSON format ({@link JsonSnapshot}) remains available for import/export.
+ * Older storage layouts (the single {@code sign_holograms.*} file, and whole-world shard snapshots)
+ * are migrated on first start.
+ * In memory, signs are held per world in chunk buckets keyed by packed location (see {@link SignLocation}),
+ * so lookups on the block break path neither build strings nor allocate, and chunks without
+ * signs are rejected with a single lookup.
  * 
- * Implements async saving with 15-minute autosave intervals to improve performance.
- * Data is saved asynchronously to prevent blocking the main thread.
+ * Every change is appended to its world's write-ahead journal ({@link SignJournal}) and committed to disk
+ * in small batches every {@value #GROUP_COMMIT_INTERVAL_MILLIS} ms, so a crash loses at most one batch.
+ * A checkpoint folds the journal of a changed world into its region files and truncates it. Checkpoints are
+ * debounced: one starts once a world had no changes for a quiet period, or once its oldest unsaved change
+ * reaches a maximum delay, whichever comes first. When a shard loads, its journal is folded into its regions first.
+ * Disk I/O runs on a background thread to avoid blocking world threads.
  */
-public class SignHologramStorage {
-    private static final long AUTOSAVE_INTERVAL_MINUTES = 15;
+public class SignHologramStorage implements SignStorage {
+    private static final long GROUP_COMMIT_INTERVAL_MILLIS = 100;
+    
+    /**
+     * Default time without changes after which a changed world is checkpointed.
+     */
+    public static final int DEFAULT_CHECKPOINT_QUIET_SECONDS = 30;
+    
+    /**
+     * Default longest time a changed world waits for its checkpoint, however busy it is.
+     */
+    public static final int DEFAULT_CHECKPOINT_MAX_DELAY_SECONDS = 600;
+    
+    /**
+     * File name (without extension) of the single-file storage used before worlds were sharded.
+     */
+    private static final String LEGACY_BASE_NAME = "sign_holograms";
     
-    private final Path storageFile;
+    private final Path dataFolder;
+    private final Path worldsFolder;
     private final HytaleLogger logger;
     private final ScheduledExecutorService saveExecutor;
-    private final AtomicBoolean dirty;
     
-    // Map from sign location key "worldId:x:y:z" to list of hologram UUIDs
-    private final Map<String, List<UUID>> signHolograms;
+    // Loaded shards by world ID; reads never wait for a shard that is still loading
+    private final Map<String, WorldShard> shards;
+    
+    // Shards being loaded on the save thread; guarded by shardLock together with shard publication
+    private final Map<String, CompletableFuture<WorldShard>> pendingLoads;
+    
+    // Chunks the game loaded while their world's shard was still loading; paged in on publication
+    private final Map<String, LongObjectMap<Boolean>> pendingChunks;
+    
+    // Changes made while their world's shard was still loading; applied in order on publication
+    private final Map<String, List<Consumer<WorldShard>>> pendingChanges;
+    private final Object shardLock = new Object();
+    
+    // Chunk columns holding signs in any loaded world; lets unrelated block breaks skip the storage
+    private final SignChunkFilter chunkFilter;
+    
+    private final StorageEngine storageEngine;
+    
+    // Folder each world's signs are exported to as JSON when it unloads; null while exports are off
+    private volatile Path jsonExportFolder;
+    
+    private volatile long checkpointQuietNanos = TimeUnit.SECONDS.toNanos(DEFAULT_CHECKPOINT_QUIET_SECONDS);
+    private volatile long checkpointMaxDelayNanos = TimeUnit.SECONDS.toNanos(DEFAULT_CHECKPOINT_MAX_DELAY_SECONDS);
+    
+    // Set while a requested save of all worlds is queued, so repeated requests share it
+    private final AtomicBoolean saveQueued = new AtomicBoolean(false);
     
     /**
-     * Creates a new sign hologram storage.
+     * Creates a new sign hologram storage. No world is loaded until {@link #loadWorldAsync} or
+     * the first change in that world.
      * @param dataFolder The data folder for storage files
+     * @param storageEngine How worlds keep their signs: {@code "Regions"} (region files paged in with their chunks,
+     *                      the default), {@code "Mapped"} (a memory-mapped table holding every sign) or {@code "Sql"}
+     *                      (an embedded SQLite database); a world stored with another engine is migrated as it loads.
+     *                      Unknown names fall back to the default
      * @param logger The logger instance
      */
-    public SignHologramStorage(Path dataFolder, HytaleLogger logger) {
-        this.storageFile = dataFolder.resolve("sign_holograms.json");
+    public SignHologramStorage(Path dataFolder, String storageEngine, HytaleLogger logger) {
+        this.dataFolder = dataFolder;
+        this.worldsFolder = dataFolder.resolve("worlds");
         this.logger = logger;
-        this.signHolograms = new ConcurrentHashMap<>();
-        this.dirty = new AtomicBoolean(false);
+        this.shards = new ConcurrentHashMap<>();
+        this.pendingLoads = new HashMap<>();
+        this.pendingChunks = new HashMap<>();
+        this.pendingChanges = new HashMap<>();
+        this.chunkFilter = new SignChunkFilter();
+        this.storageEngine = resolveStorageEngine(storageEngine, logger);
         this.saveExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread thread = new Thread(r, "SignHolograms-AutoSave");
             thread.setDaemon(true);
@@ -57,192 +129,564 @@ public class SignHologramStorage {
         
         // Create data folder if it doesn't exist
         try {
-            Files.createDirectories(dataFolder);
+            Files.createDirectories(worldsFolder);
         } catch (IOException e) {
             logger.atSevere().log("Failed to create data folder: " + e.getMessage());
         }
         
-        load();
+        migrateLegacyStorage();
         
-        // Start autosave task (every 15 minutes)
-        saveExecutor.scheduleAtFixedRate(() -> {
-            if (dirty.get()) {
-                saveAsync();
-            }
-        }, AUTOSAVE_INTERVAL_MINUTES, AUTOSAVE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        // Group commit: flush buffered journal records in one write per world, then checkpoint worlds that are due
+        saveExecutor.scheduleWithFixedDelay(this::commitJournals,
+            GROUP_COMMIT_INTERVAL_MILLIS, GROUP_COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
         
-        logger.atInfo().log("Autosave enabled with " + AUTOSAVE_INTERVAL_MINUTES + " minute interval");
+        logger.atInfo().log("Journal enabled with " + GROUP_COMMIT_INTERVAL_MILLIS + " ms group commit");
     }
     
     /**
-     * Registers a sign hologram mapping.
-     * @param worldId The world ID
-     * @param x The x coordinate
-     * @param y The y coordinate
-     * @param z The z coordinate
-     * @param entityUuid The hologram entity UUID
+     * Sets when changed worlds are checkpointed: once they had no changes for the quiet period,
+     * but no later than the maximum delay after their first unsaved change.
+     * Safe to call at any time; applies from the next check on.
+     * @param quietSeconds The quiet period in seconds
+     * @param maxDelaySeconds The maximum delay in seconds, at least the quiet period
      */
-    public void registerSignHologram(String worldId, int x, int y, int z, UUID entityUuid) {
-        String locationKey = makeLocationKey(worldId, x, y, z);
-        signHolograms.computeIfAbsent(locationKey, k -> new ArrayList<>()).add(entityUuid);
-        markDirty();
-        logger.atInfo().log("Registered sign hologram at " + locationKey + " with UUID: " + entityUuid);
+    public void setCheckpointTiming(int quietSeconds, int maxDelaySeconds) {
+        long quiet = TimeUnit.SECONDS.toNanos(Math.max(1, quietSeconds));
+        this.checkpointQuietNanos = quiet;
+        this.checkpointMaxDelayNanos = Math.max(quiet, TimeUnit.SECONDS.toNanos(maxDelaySeconds));
+        logger.atInfo().log("Checkpoint after " + Math.max(1, quietSeconds) + " s without changes, at most "
+            + TimeUnit.NANOSECONDS.toSeconds(checkpointMaxDelayNanos) + " s after the first change");
     }
     
     /**
-     * Gets all hologram UUIDs for a sign location.
-     * @param worldId The world ID
-     * @param x The x coordinate
-     * @param y The y coordinate
-     * @param z The z coordinate
-     * @return List of hologram UUIDs, or null if none exist
+     * Sets whether each world's signs are also written to {@code export/<world>.json} in the data folder,
+     * in the format {@link #importJson} reads, whenever the world is unloaded, including on shutdown.
+     * Safe to call at any time; applies from the next unload on.
+     * @param enabled true to export worlds as they unload
      */
-    public List<UUID> getSignHolograms(String worldId, int x, int y, int z) {
-        String locationKey = makeLocationKey(worldId, x, y, z);
-        return signHolograms.get(locationKey);
+    public void setJsonExport(boolean enabled) {
+        this.jsonExportFolder = enabled ? dataFolder.resolve("export") : null;
     }
     
     /**
-     * Removes all hologram mappings for a sign location.
-     * Returns the UUIDs that were removed.
-     * @param worldId The world ID
-     * @param x The x coordinate
-     * @param y The y coordinate
-     * @param z The z coordinate
-     * @return List of removed hologram UUIDs, or null if none existed
+     * Looks up the configured storage engine, which stays fixed for the storage's lifetime so every
+     * world of a run is opened with the same engine.
      */
-    public List<UUID> removeSignHolograms(String worldId, int x, int y, int z) {
-        String locationKey = makeLocationKey(worldId, x, y, z);
-        List<UUID> removed = signHolograms.remove(locationKey);
-        if (removed != null && !removed.isEmpty()) {
-            markDirty();
-            logger.atInfo().log("Removed " + removed.size() + " sign holograms at " + locationKey);
+    private static StorageEngine resolveStorageEngine(String name, HytaleLogger logger) {
+        StorageEngine engine = StorageEngine.fromConfigName(name);
+        if (engine == null) {
+            engine = StorageEngine.REGIONS;
+            logger.atWarning().log("Unknown storage engine '" + name + "', using " + engine.getConfigName());
+        }
+        logger.atInfo().log("Using the " + engine.getConfigName() + " sign storage engine");
+        return engine;
+    }
+    
+    @Override
+    public void loadWorldAsync(String worldId) {
+        loadShard(worldId);
+    }
+    
+    @Override
+    public void unloadWorld(String worldId) {
+        CompletableFuture<WorldShard> pending;
+        synchronized (shardLock) {
+            WorldShard shard = shards.remove(worldId);
+            if (shard != null) {
+                Runnable unload = () -> {
+                    closeShard(shard);
+                    logger.atInfo().log("Unloaded sign holograms for world " + worldId);
+                };
+                try {
+                    saveExecutor.execute(unload);
+                } catch (RejectedExecutionException e) {
+                    unload.run(); // Shutting down; flush on the caller's thread
+                }
+                return;
+            }
+            pending = pendingLoads.get(worldId);
+        }
+        if (pending != null) {
+            // Still loading: unload once it is published
+            pending.thenRun(() -> unloadWorld(worldId));
         }
-        return removed;
     }
     
+    @Override
+    public CompletableFuture<Void> onChunkLoad(String worldId, int chunkX, int chunkZ) {
+        long chunkKey = SignLocation.chunkKey(chunkX, chunkZ);
+        WorldShard shard = shards.get(worldId);
+        if (shard == null) {
+            synchronized (shardLock) {
+                shard = shards.get(worldId);
+                if (shard == null) {
+                    // The load pages the chunk in before it publishes the shard
+                    pendingChunks.computeIfAbsent(worldId, id -> new LongObjectMap<>()).put(chunkKey, Boolean.TRUE);
+                    return loadShard(worldId).thenRun(() -> { });
+                }
+            }
+        }
+        SignTable signs = shard.signs();
+        return runOnSaveThread(() -> signs.pageIn(chunkKey));
+    }
+    
+    @Override
+    public void onChunkUnload(String worldId, int chunkX, int chunkZ) {
+        long chunkKey = SignLocation.chunkKey(chunkX, chunkZ);
+        WorldShard shard = shards.get(worldId);
+        if (shard == null) {
+            synchronized (shardLock) {
+                shard = shards.get(worldId);
+                if (shard == null) {
+                    LongObjectMap<Boolean> loadedChunks = pendingChunks.get(worldId);
+                    if (loadedChunks != null) {
+                        loadedChunks.remove(chunkKey);
+                    }
+                    return;
+                }
+            }
+        }
+        SignTable signs = shard.signs();
+        runOnSaveThread(() -> signs.pageOut(chunkKey));
+    }
+
     /**
-     * Gets all sign hologram mappings.
-     * @return A copy of all sign hologram mappings
+     * Runs a page-in or page-out on the save thread, in the order the game loaded and unloaded the chunks,
+     * so reading a chunk's signs from disk never holds up a world thread. Dropped while shutting down,
+     * since the world is about to be closed anyway.
+     * @return Completes once it has run, or right away if it was dropped
      */
-    public Map<String, List<UUID>> getAllSignHolograms() {
-        return new ConcurrentHashMap<>(signHolograms);
+    private CompletableFuture<Void> runOnSaveThread(Runnable paging) {
+        try {
+            return CompletableFuture.runAsync(paging, saveExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+    
+    @Override
+    public int getLoadedWorldCount() {
+        return shards.size();
+    }
+    
+    @Override
+    public boolean isWorldLoaded(String worldId) {
+        return shards.containsKey(worldId);
+    }
+    
+    @Override
+    public void registerSignHologram(String worldId, int x, int y, int z, UUID entityUuid) {
+        long location = SignLocation.pack(x, y, z);
+        WorldShard shard = shardForChange(worldId, loading -> addHologram(loading, location, entityUuid));
+        if (shard != null) {
+            addHologram(shard, location, entityUuid);
+        }
+    }
+    
+    @Override
+    public List<UUID> getSignHolograms(String worldId, int x, int y, int z) {
+        SignRecord record = getSign(worldId, x, y, z);
+        return record != null ? record.getHologramIds() : null;
+    }
+    
+    @Override
+    public SignRecord getSign(String worldId, int x, int y, int z) {
+        SignTable world = loadedSigns(worldId);
+        return world != null ? world.get(SignLocation.pack(x, y, z)) : null;
+    }
+    
+    @Override
+    public void putSign(String worldId, int x, int y, int z, SignRecord record) {
+        long location = SignLocation.pack(x, y, z);
+        WorldShard shard = shardForChange(worldId, loading -> putSign(loading, location, record));
+        if (shard != null) {
+            putSign(shard, location, record);
+        }
+    }
+    
+    @Override
+    public List<UUID> removeSignHolograms(String worldId, int x, int y, int z) {
+        long location = SignLocation.pack(x, y, z);
+        WorldShard shard = shardForChange(worldId, loading -> removeSign(loading, location));
+        return shard != null ? removeSign(shard, location) : null;
     }
     
     /**
-     * Checks if there is a tracked sign at the specified location.
-     * @param worldId The world ID
-     * @param x The x coordinate
-     * @param y The y coordinate
-     * @param z The z coordinate
-     * @return true if a sign exists at this location, false otherwise
+     * Appends a hologram UUID to a sign in a loaded shard.
      */
+    private void addHologram(WorldShard shard, long location, UUID entityUuid) {
+        shard.signs().add(location, entityUuid);
+        shard.markDirty();
+        logger.atInfo().log("Registered sign hologram at " + SignLocation.toKey(shard.getWorldId(), location) + " with UUID: " + entityUuid);
+    }
+    
+    /**
+     * Stores a sign in a loaded shard.
+     */
+    private void putSign(WorldShard shard, long location, SignRecord record) {
+        shard.signs().set(location, record);
+        shard.markDirty();
+        logger.atInfo().log("Stored sign at " + SignLocation.toKey(shard.getWorldId(), location) + " with " + record.getHologramCount() + " holograms");
+    }
+    
+    /**
+     * Removes a sign from a loaded shard.
+     * @return The UUIDs of its holograms, or null if no sign was tracked there
+     */
+    private List<UUID> removeSign(WorldShard shard, long location) {
+        SignRecord removed = shard.signs().remove(location);
+        if (removed == null) {
+            return null;
+        }
+        shard.markDirty();
+        if (removed.getHologramCount() > 0) {
+            logger.atInfo().log("Removed " + removed.getHologramCount() + " sign holograms at " + SignLocation.toKey(shard.getWorldId(), location));
+        }
+        return removed.getHologramIds();
+    }
+    
+    @Override
+    public Map<String, List<UUID>> getAllSignHolograms() {
+        Map<String, List<UUID>> all = new HashMap<>();
+        for (WorldShard shard : shards.values()) {
+            shard.signs().forEachResident((location, record) ->
+                all.put(SignLocation.toKey(shard.getWorldId(), location), record.getHologramIds()));
+        }
+        return all;
+    }
+    
+    @Override
+    public int getSignCount() {
+        int count = 0;
+        for (WorldShard shard : shards.values()) {
+            count += shard.signs().size();
+        }
+        return count;
+    }
+    
+    @Override
+    public long[] getLoadedSigns(String worldId) {
+        SignTable world = loadedSigns(worldId);
+        return world != null ? world.loadedLocations() : new long[0];
+    }
+    
+    @Override
     public boolean hasSignAt(String worldId, int x, int y, int z) {
-        String key = makeLocationKey(worldId, x, y, z);
-        return signHolograms.containsKey(key);
+        SignTable world = loadedSigns(worldId);
+        return world != null && world.contains(SignLocation.pack(x, y, z));
+    }
+    
+    @Override
+    public boolean mightHaveSignNear(int x, int z) {
+        return chunkFilter.mightContainNear(x, z);
     }
     
     /**
-     * Creates a location key for sign position.
+     * Gets how many {@link #mightHaveSignNear} queries were made.
+     * @return The query count
      */
-    private String makeLocationKey(String worldId, int x, int y, int z) {
-        return worldId + ":" + x + ":" + y + ":" + z;
+    public long getFilterQueryCount() {
+        return chunkFilter.getQueryCount();
     }
     
     /**
-     * Loads sign hologram mappings from JSON storage file.
+     * Gets how many {@link #mightHaveSignNear} queries returned false, letting the caller skip the storage.
+     * @return The fast path count
      */
-    private void load() {
-        if (!Files.exists(storageFile)) {
-            logger.atInfo().log("No existing sign holograms file found, starting fresh");
-            return;
+    public long getFilterFastPathCount() {
+        return chunkFilter.getNegativeCount();
+    }
+    
+    /**
+     * Gets the size of the chunk filter.
+     * @return The number of filter bits
+     */
+    public int getFilterBitCount() {
+        return chunkFilter.getBitCount();
+    }
+    
+    /**
+     * Measures how much the text of the resident sign records shares through {@link TextInterner}, as of now.
+     * Nameplates are not counted: per-line ones hold the same instances, single-entity ones a copy each.
+     * Walks every resident sign, so it is meant for statistics, not for hot paths.
+     * @return The shared text usage
+     */
+    public TextInterner.Usage measureSharedText() {
+        TextInterner.Usage usage = new TextInterner.Usage();
+        for (WorldShard shard : shards.values()) {
+            shard.signs().forEachResident((location, record) -> {
+                for (String line : record.getLines()) {
+                    usage.add(line);
+                }
+            });
         }
-        
-        try {
-            String json = Files.readString(storageFile);
-            BsonDocument document = BsonDocument.parse(json);
-            
-            if (document == null) {
-                logger.atWarning().log("Failed to parse sign holograms JSON: document is null");
-                return;
-            }
-            
-            SignHologramData data = SignHologramData.CODEC.decode(document, new ExtraInfo());
-            signHolograms.putAll(data.getSignHolograms());
-            
-            logger.atInfo().log("Loaded " + signHolograms.size() + " sign hologram mappings from storage");
-            
-        } catch (IOException e) {
-            logger.atSevere().log("Failed to load sign holograms: " + e.getMessage());
-        } catch (Exception e) {
-            logger.atSevere().log("Failed to parse sign holograms JSON: " + e.getMessage());
-            e.printStackTrace();
+        return usage;
+    }
+    
+    @Override
+    public int getAdjacentSignMask(String worldId, int x, int y, int z) {
+        SignTable world = loadedSigns(worldId);
+        return world != null ? world.adjacentSignMask(x, y, z) : 0;
+    }
+    
+    @Override
+    public long[] getSignsInChunk(String worldId, int chunkX, int chunkZ) {
+        SignTable world = loadedSigns(worldId);
+        return world != null ? world.signsInChunk(chunkX, chunkZ) : new long[0];
+    }
+    
+    @Override
+    public long[] getSignsInBox(String worldId, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        SignTable world = loadedSigns(worldId);
+        if (world == null) {
+            return new long[0];
         }
+        return world.signsInBox(
+            Math.min(minX, maxX), Math.min(minY, maxY), Math.min(minZ, maxZ),
+            Math.max(minX, maxX), Math.max(minY, maxY), Math.max(minZ, maxZ)
+        );
     }
     
     /**
-     * Marks data as dirty (needing save).
+     * Gets the table of a loaded world without waiting for a pending load.
      */
-    private void markDirty() {
-        dirty.set(true);
+    private SignTable loadedSigns(String worldId) {
+        WorldShard shard = shards.get(worldId);
+        return shard != null ? shard.signs() : null;
     }
     
     /**
-     * Saves data asynchronously if dirty.
-     * Safe to call from any thread.
+     * Gets a world's shard for a change. If the shard is not loaded yet, the change is queued instead,
+     * starting the load if needed, and null is returned: queued changes are applied in order right before
+     * the shard is published, so a change is never applied before the state it builds on, and world
+     * threads never wait for the save thread.
+     * @param change Applies the change to the shard once it is loaded
+     * @return The loaded shard to apply the change to now, or null if it was queued
      */
-    public void saveAsync() {
-        if (!dirty.get()) {
-            return; // No changes to save
+    private WorldShard shardForChange(String worldId, Consumer<WorldShard> change) {
+        WorldShard shard = shards.get(worldId);
+        if (shard != null) {
+            return shard;
+        }
+        synchronized (shardLock) {
+            shard = shards.get(worldId);
+            if (shard == null) {
+                pendingChanges.computeIfAbsent(worldId, id -> new ArrayList<>()).add(change);
+                loadShard(worldId);
+            }
+            return shard;
         }
-        
-        saveExecutor.execute(() -> {
-            save();
-        });
     }
     
     /**
-     * Saves data synchronously (blocks until complete).
-     * Should be called on server shutdown to ensure all data is saved.
+     * Returns the loaded shard or the pending load of a world, starting a load on the save thread if neither exists.
+     * Loads and unloads run on the same single thread, so a world that is reloaded right after being
+     * unloaded always sees the files written by the unload.
      */
-    public void saveSync() {
-        if (dirty.get()) {
-            save();
+    private CompletableFuture<WorldShard> loadShard(String worldId) {
+        synchronized (shardLock) {
+            WorldShard loaded = shards.get(worldId);
+            if (loaded != null) {
+                return CompletableFuture.completedFuture(loaded);
+            }
+            CompletableFuture<WorldShard> pending = pendingLoads.get(worldId);
+            if (pending == null) {
+                CompletableFuture<WorldShard> future = new CompletableFuture<>();
+                // The task takes shardLock before publishing, so it cannot finish before the put below
+                saveExecutor.execute(() -> {
+                    WorldShard shard = new WorldShard(worldsFolder, worldId, storageEngine, chunkFilter, saveExecutor, logger);
+                    shard.load();
+                    synchronized (shardLock) {
+                        LongObjectMap<Boolean> loadedChunks = pendingChunks.remove(worldId);
+                        if (loadedChunks != null) {
+                            loadedChunks.forEach((chunkKey, value) -> shard.signs().pageIn(chunkKey));
+                        }
+                        List<Consumer<WorldShard>> changes = pendingChanges.remove(worldId);
+                        if (changes != null) {
+                            changes.forEach(change -> change.accept(shard));
+                        }
+                        shards.put(worldId, shard);
+                        pendingLoads.remove(worldId);
+                    }
+                    future.complete(shard);
+                });
+                pendingLoads.put(worldId, future);
+                pending = future;
+            }
+            return pending;
         }
     }
     
     /**
-     * Saves sign hologram mappings to JSON storage file using Codec.
-     * Should only be called internally or by saveSync/saveAsync.
+     * Splits the single-file storage used before worlds were sharded into one shard per world,
+     * then renames the old files to {@code *.migrated}. Worlds that already have a shard are skipped,
+     * so an interrupted migration never overwrites newer shard data when it is retried.
      */
-    private void save() {
-        if (!dirty.compareAndSet(true, false)) {
-            return; // Already saved or no changes
+    private void migrateLegacyStorage() {
+        Path legacySnapshot = null;
+        SnapshotFormat legacyFormat = null;
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            Path file = dataFolder.resolve(format.getFileName(LEGACY_BASE_NAME));
+            if (Files.exists(file)) {
+                legacySnapshot = file;
+                legacyFormat = format;
+                break;
+            }
+        }
+        SignJournal legacyJournal = new SignJournal(dataFolder, LEGACY_BASE_NAME, logger);
+        if (legacySnapshot == null && !legacyJournal.exists()) {
+            return;
         }
         
+        logger.atInfo().log("Migrating " + LEGACY_BASE_NAME + " storage to per-world shards");
+        Map<String, LongObjectMap<SignRecord>> legacy = new HashMap<>();
         try {
-            SignHologramData data = new SignHologramData(new ConcurrentHashMap<>(signHolograms));
-            BsonDocument document = SignHologramData.CODEC.encode(data, new ExtraInfo());
-            
-            String json = document.toJson();
-            Files.writeString(storageFile, json);
-            
-            logger.atInfo().log("Saved " + signHolograms.size() + " sign hologram mappings");
-            
+            if (legacySnapshot != null) {
+                WorldShard.readSnapshot(legacySnapshot, legacyFormat,
+                    (worldId, location, record) -> legacy.computeIfAbsent(worldId, id -> new LongObjectMap<>()).put(location, record));
+            }
+            legacyJournal.replay(new SignJournal.RecordHandler() {
+                @Override
+                public void put(String worldId, long location, SignRecord record) {
+                    legacy.computeIfAbsent(worldId, id -> new LongObjectMap<>()).put(location, record);
+                }
+                
+                @Override
+                public void remove(String worldId, long location) {
+                    LongObjectMap<SignRecord> signs = legacy.get(worldId);
+                    if (signs != null) {
+                        signs.remove(location);
+                    }
+                }
+            });
         } catch (IOException e) {
-            logger.atSevere().log("Failed to save sign holograms: " + e.getMessage());
-            dirty.set(true); // Mark dirty again so we retry next time
+            logger.atSevere().log("Failed to read " + LEGACY_BASE_NAME + " storage, will retry migration on next start: " + e.getMessage());
+            return;
         } catch (Exception e) {
-            logger.atSevere().log("Failed to encode sign holograms to JSON: " + e.getMessage());
+            logger.atSevere().log("Failed to parse " + LEGACY_BASE_NAME + " storage, will retry migration on next start: " + e.getMessage());
             e.printStackTrace();
-            dirty.set(true); // Mark dirty again so we retry next time
+            return;
+        }
+        
+        boolean complete = true;
+        for (Map.Entry<String, LongObjectMap<SignRecord>> world : legacy.entrySet()) {
+            // A throwaway filter: the shard is closed again right away
+            WorldShard shard = new WorldShard(worldsFolder, world.getKey(), storageEngine, new SignChunkFilter(), saveExecutor, logger);
+            if (shard.exists()) {
+                logger.atWarning().log("Shard for world " + world.getKey() + " already exists, not migrating its legacy entries");
+                continue;
+            }
+            shard.load();
+            world.getValue().forEach((location, record) -> shard.signs().replayPut(location, record));
+            shard.markDirty();
+            shard.save();
+            complete &= !shard.isDirty();
+            shard.close();
+        }
+        if (!complete) {
+            logger.atWarning().log("Some worlds failed to migrate; keeping " + LEGACY_BASE_NAME + " files until the next start");
+            return;
+        }
+        
+        try {
+            if (legacySnapshot != null) {
+                Files.move(legacySnapshot, legacySnapshot.resolveSibling(legacySnapshot.getFileName() + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+            }
+            legacyJournal.archive(".migrated");
+            logger.atInfo().log("Migrated " + legacy.size() + " worlds to per-world shards");
+        } catch (IOException e) {
+            logger.atWarning().log("Migrated to per-world shards but could not rename " + LEGACY_BASE_NAME + " files: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public void exportJson(Path target) throws IOException {
+        List<SignTable> loaded = new ArrayList<>();
+        for (WorldShard shard : shards.values()) {
+            loaded.add(shard.signs());
+        }
+        JsonSnapshot.write(target, loaded);
+        logger.atInfo().log("Exported " + getSignCount() + " sign hologram mappings to " + target);
+    }
+    
+    @Override
+    public int importJson(Path source) throws IOException {
+        int imported = JsonSnapshot.read(source, (worldId, location, record) -> {
+            WorldShard shard = shardForChange(worldId, loading -> {
+                loading.signs().set(location, record);
+                loading.markDirty();
+            });
+            if (shard != null) {
+                shard.signs().set(location, record);
+                shard.markDirty();
+            }
+        });
+        logger.atInfo().log("Imported " + imported + " sign hologram mappings from " + source);
+        return imported;
+    }
+    
+    /**
+     * Checkpoints a world's shard, exports its signs if exports are on, then closes it.
+     */
+    private void closeShard(WorldShard shard) {
+        Path folder = jsonExportFolder;
+        if (folder != null) {
+            shard.save();
+            Path target = folder.resolve(WorldShard.directoryFor(folder, shard.getWorldId()).getFileName() + ".json");
+            try {
+                Files.createDirectories(folder);
+                JsonSnapshot.write(target, List.of(shard.signs()));
+                logger.atInfo().log("Exported signs of world " + shard.getWorldId() + " to " + target);
+            } catch (IOException e) {
+                logger.atSevere().log("Failed to export signs of world " + shard.getWorldId() + " to " + target + ": " + e.getMessage());
+            }
+        }
+        shard.close();
+    }
+    
+    /**
+     * Writes buffered journal records of every loaded world to disk, then checkpoints the worlds
+     * whose quiet period or maximum delay has passed. Runs on the save thread, so at most one
+     * checkpoint is in flight.
+     */
+    private void commitJournals() {
+        long now = System.nanoTime();
+        long quiet = checkpointQuietNanos;
+        long maxDelay = checkpointMaxDelayNanos;
+        for (WorldShard shard : shards.values()) {
+            shard.commitJournal();
+            if (shard.isCheckpointDue(now, quiet, maxDelay)) {
+                shard.save();
+            }
         }
     }
     
     /**
-     * Shuts down the autosave executor and performs final save.
-     * Must be called on plugin shutdown to ensure data is saved and threads are cleaned up.
+     * Checkpoints every loaded world with unsaved changes. Runs on the save thread.
      */
+    private void saveAll() {
+        for (WorldShard shard : shards.values()) {
+            shard.save();
+        }
+    }
+    
+    @Override
+    public void saveAsync() {
+        if (saveQueued.compareAndSet(false, true)) {
+            saveExecutor.execute(() -> {
+                saveQueued.set(false);
+                saveAll();
+            });
+        }
+    }
+    
+    @Override
+    public void saveSync() {
+        saveAll();
+    }
+    
+    @Override
     public void shutdown() {
         logger.atInfo().log("Shutting down SignHologramStorage...");
         
@@ -259,8 +703,13 @@ public class SignHologramStorage {
             Thread.currentThread().interrupt();
         }
         
-        // Final synchronous save
-        saveSync();
+        // Final synchronous checkpoint of every loaded world, then flush anything appended since
+        synchronized (shardLock) {
+            for (WorldShard shard : shards.values()) {
+                closeShard(shard);
+            }
+            shards.clear();
+        }
         logger.atInfo().log("SignHologramStorage shutdown complete");
     }
 }
@@ -0,0 +1,333 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * Append-only write-ahead journal of sign changes.
+ *
+ * Each register or remove appends one small record describing the full new state of a
+ * sign location, so replaying a record twice is harmless. Records are buffered in memory
+ * and written by {@link #commit()} in batches (group commit) with a single fsync.
+ *
+ * A checkpoint calls {@link #rotate()} to seal the current segment, writes a snapshot, then
+ * calls {@link #discardSealed()}. If the server dies in between, the sealed segment is
+ * simply replayed again on the next start.
+ *
+ * Record layout: {@code [int length][payload][int crc32(payload)]}, where the payload is
+ * {@code [byte op][short nameLength][name UTF-8][long location]}, followed for puts by the
+ * encoded {@link SignRecord}.
+ */
+class SignJournal {
+
+    /**
+     * Record type written before text was stored: the location now maps to exactly the listed UUIDs.
+     */
+    static final byte OP_PUT = 1;
+
+    /**
+     * Record type: the location no longer holds a tracked sign.
+     */
+    static final byte OP_REMOVE = 2;
+
+    /**
+     * Record type: the location now holds exactly the given sign record.
+     */
+    static final byte OP_PUT_SIGN = 3;
+
+    private static final int MAX_PAYLOAD = 1 << 20;
+
+    private final Path file;
+    private final Path sealedFile;
+    private final HytaleLogger logger;
+
+    // Serializes commit and rotate against each other; appenders only take the instance lock
+    private final Object ioLock = new Object();
+
+    private ByteBuffer pending = ByteBuffer.allocate(4096);
+    private FileChannel channel;
+    private long committedBytes;
+
+    /**
+     * Creates a journal in the given folder. Call {@link #replay} and then {@link #open()} before appending.
+     * @param dataFolder The data folder
+     * @param baseName The file name prefix
+     * @param logger The logger instance
+     */
+    SignJournal(Path dataFolder, String baseName, HytaleLogger logger) {
+        this.file = dataFolder.resolve(baseName + ".journal");
+        this.sealedFile = dataFolder.resolve(baseName + ".journal.old");
+        this.logger = logger;
+    }
+
+    /**
+     * Opens the current segment for appending.
+     * @throws IOException If the file cannot be opened
+     */
+    void open() throws IOException {
+        synchronized (ioLock) {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            committedBytes = channel.size();
+        }
+    }
+
+    /**
+     * Buffers a record stating that a location holds the given sign.
+     * @param worldId The world ID
+     * @param location The packed location
+     * @param record The complete record for the location
+     */
+    synchronized void appendPut(String worldId, long location, SignRecord record) {
+        byte[] name = worldId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = reserve(1 + 2 + name.length + 8 + record.encodedSize());
+        int start = buf.position();
+        buf.put(OP_PUT_SIGN).putShort((short) name.length).put(name).putLong(location);
+        record.writeTo(buf);
+        finish(buf, start);
+    }
+
+    /**
+     * Buffers a record stating that a location no longer holds a sign.
+     * @param worldId The world ID
+     * @param location The packed location
+     */
+    synchronized void appendRemove(String worldId, long location) {
+        byte[] name = worldId.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = reserve(1 + 2 + name.length + 8);
+        int start = buf.position();
+        buf.put(OP_REMOVE).putShort((short) name.length).put(name).putLong(location);
+        finish(buf, start);
+    }
+
+    /**
+     * Writes all buffered records to disk with one write and one fsync.
+     * @return The number of bytes written
+     * @throws IOException If the write fails; the batch is lost from memory but the
+     *         in-memory state still holds it, and the next checkpoint will persist it
+     */
+    long commit() throws IOException {
+        synchronized (ioLock) {
+            ByteBuffer batch;
+            synchronized (this) {
+                if (pending.position() == 0 || channel == null) {
+                    return 0;
+                }
+                batch = pending.flip();
+                pending = ByteBuffer.allocate(Math.max(4096, batch.capacity() >> 1));
+            }
+            int length = batch.remaining();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+            committedBytes += length;
+            return length;
+        }
+    }
+
+    /**
+     * Commits buffered records, then seals the current segment so a checkpoint can fold it into a snapshot.
+     * If an earlier checkpoint failed and left a sealed segment behind, the current segment is appended to it.
+     * @throws IOException If the segment cannot be sealed
+     */
+    void rotate() throws IOException {
+        synchronized (ioLock) {
+            if (channel == null) {
+                throw new IOException("Journal is not open");
+            }
+            commit();
+            channel.close();
+            if (Files.exists(sealedFile)) {
+                try (FileChannel sealed = FileChannel.open(sealedFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                     FileChannel current = FileChannel.open(file, StandardOpenOption.READ)) {
+                    long position = 0;
+                    long size = current.size();
+                    while (position < size) {
+                        position += current.transferTo(position, size - position, sealed);
+                    }
+                    sealed.force(false);
+                }
+                Files.delete(file);
+            } else {
+                Files.move(file, sealedFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            committedBytes = 0;
+        }
+    }
+
+    /**
+     * Deletes the sealed segment once a snapshot containing its changes is safely on disk.
+     * @throws IOException If the file cannot be deleted
+     */
+    void discardSealed() throws IOException {
+        Files.deleteIfExists(sealedFile);
+    }
+
+    /**
+     * Checks whether any journal segment exists on disk.
+     * @return true if there is something to replay
+     */
+    boolean exists() {
+        return Files.exists(file) || Files.exists(sealedFile);
+    }
+
+    /**
+     * Renames all segments with a suffix so they are kept but never replayed again.
+     * Only valid for a journal that was never opened.
+     * @param suffix The suffix to append to each file name
+     * @throws IOException If a segment cannot be renamed
+     */
+    void archive(String suffix) throws IOException {
+        for (Path segment : new Path[] {sealedFile, file}) {
+            if (Files.exists(segment)) {
+                Files.move(segment, segment.resolveSibling(segment.getFileName() + suffix), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of committed bytes in the current segment.
+     * @return The current segment size
+     */
+    long getCommittedBytes() {
+        synchronized (ioLock) {
+            return committedBytes;
+        }
+    }
+
+    /**
+     * Commits outstanding records and closes the journal.
+     * @throws IOException If the final commit fails
+     */
+    void close() throws IOException {
+        synchronized (ioLock) {
+            if (channel == null) {
+                return;
+            }
+            try {
+                commit();
+            } finally {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Replays the sealed segment (if any) and then the current segment, in order.
+     * A torn or corrupt record ends its segment; the current segment is truncated to its last good record.
+     * @param handler Receives each record
+     * @return The number of records replayed
+     * @throws IOException If a segment cannot be read
+     */
+    int replay(RecordHandler handler) throws IOException {
+        int records = 0;
+        if (Files.exists(sealedFile)) {
+            records += replaySegment(sealedFile, handler);
+        }
+        if (Files.exists(file)) {
+            records += replaySegment(file, handler);
+        }
+        return records;
+    }
+
+    private int replaySegment(Path segment, RecordHandler handler) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(segment));
+        CRC32 crc = new CRC32();
+        int records = 0;
+        int validEnd = 0;
+
+        while (buf.remaining() >= 4) {
+            int length = buf.getInt();
+            if (length <= 0 || length > MAX_PAYLOAD || buf.remaining() < length + 4) {
+                break;
+            }
+            int start = buf.position();
+            crc.reset();
+            crc.update(buf.array(), start, length);
+            buf.position(start + length);
+            if ((int) crc.getValue() != buf.getInt()) {
+                break;
+            }
+            validEnd = buf.position();
+
+            ByteBuffer payload = ByteBuffer.wrap(buf.array(), start, length);
+            byte op = payload.get();
+            byte[] name = new byte[payload.getShort() & 0xFFFF];
+            payload.get(name);
+            String worldId = new String(name, StandardCharsets.UTF_8);
+            long location = payload.getLong();
+            if (op == OP_PUT || op == OP_PUT_SIGN) {
+                handler.put(worldId, location, SignRecord.readFrom(payload, op == OP_PUT_SIGN));
+            } else if (op == OP_REMOVE) {
+                handler.remove(worldId, location);
+            }
+            records++;
+        }
+
+        if (validEnd < buf.capacity()) {
+            logger.atWarning().log("Journal " + segment.getFileName() + " has a damaged tail after " + records
+                + " records; discarding " + (buf.capacity() - validEnd) + " bytes");
+            if (segment.equals(file)) {
+                try (FileChannel truncate = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                    truncate.truncate(validEnd);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Ensures the pending buffer can take one more record and reserves its length prefix.
+     */
+    private ByteBuffer reserve(int payloadLength) {
+        int needed = 4 + payloadLength + 4;
+        if (pending.remaining() < needed) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() << 1, pending.position() + needed));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        pending.putInt(payloadLength);
+        return pending;
+    }
+
+    /**
+     * Appends the checksum of the payload that started at {@code start}.
+     */
+    private static void finish(ByteBuffer buf, int start) {
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), start, buf.position() - start);
+        buf.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Receives replayed journal records.
+     */
+    interface RecordHandler {
+        /**
+         * Applies a put record.
+         * @param worldId The world ID
+         * @param location The packed location
+         * @param record The complete record for the location
+         */
+        void put(String worldId, long location, SignRecord record);
+
+        /**
+         * Applies a remove record.
+         * @param worldId The world ID
+         * @param location The packed location
+         */
+        void remove(String worldId, long location);
+    }
+}
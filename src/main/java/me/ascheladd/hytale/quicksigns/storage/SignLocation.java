@@ -0,0 +1,139 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+/**
+ * Packs block coordinates into a single {@code long} so sign locations can be used
+ * as primitive map keys without building a string per lookup.
+ *
+ * Layout (most to least significant): 26 bits X, 26 bits Z, 12 bits Y, all two's complement.
+ * That covers X/Z in [-33554432, 33554431] and Y in [-2048, 2047].
+ */
+public final class SignLocation {
+
+    /**
+     * Log2 of the chunk column width in blocks (Hytale chunks are 32x32).
+     */
+    public static final int CHUNK_SHIFT = 5;
+
+    /**
+     * Horizontal neighbour offsets {dx, dz}: east, west, south, north. Wall-mounted signs attached to
+     * a block sit at one of these positions, and a sign's facing indexes them. Must not be modified.
+     */
+    public static final int[][] ADJACENT_OFFSETS = {
+        {1, 0},
+        {-1, 0},
+        {0, 1},
+        {0, -1}
+    };
+
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+    private static final int Z_SHIFT = Y_BITS;
+    private static final int X_SHIFT = Y_BITS + XZ_BITS;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SignLocation() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Packs block coordinates into a location key.
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return The packed location
+     */
+    public static long pack(int x, int y, int z) {
+        return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+    }
+
+    /**
+     * Extracts the x coordinate from a packed location.
+     * @param packed The packed location
+     * @return The x coordinate
+     */
+    public static int unpackX(long packed) {
+        return (int) (packed >> X_SHIFT);
+    }
+
+    /**
+     * Extracts the y coordinate from a packed location.
+     * @param packed The packed location
+     * @return The y coordinate
+     */
+    public static int unpackY(long packed) {
+        return (int) (packed << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    /**
+     * Extracts the z coordinate from a packed location.
+     * @param packed The packed location
+     * @return The z coordinate
+     */
+    public static int unpackZ(long packed) {
+        return (int) (packed << (64 - X_SHIFT) >> (64 - XZ_BITS));
+    }
+
+    /**
+     * Packs chunk coordinates into a chunk key.
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return The chunk key
+     */
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the chunk x coordinate of a chunk key.
+     * @param chunkKey The chunk key
+     * @return The chunk x coordinate
+     */
+    public static int chunkKeyX(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
+    /**
+     * Gets the chunk z coordinate of a chunk key.
+     * @param chunkKey The chunk key
+     * @return The chunk z coordinate
+     */
+    public static int chunkKeyZ(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    /**
+     * Gets the key of the chunk containing a block.
+     * @param x The block x coordinate
+     * @param z The block z coordinate
+     * @return The chunk key
+     */
+    public static long chunkKeyOf(int x, int z) {
+        return chunkKey(x >> CHUNK_SHIFT, z >> CHUNK_SHIFT);
+    }
+
+    /**
+     * Gets the key of the chunk containing a packed location.
+     * @param packed The packed location
+     * @return The chunk key
+     */
+    public static long chunkKeyOf(long packed) {
+        return chunkKeyOf(unpackX(packed), unpackZ(packed));
+    }
+
+    /**
+     * Formats a location as the legacy "worldId:x:y:z" string.
+     * Only used for logging and the JSON file format.
+     * @param worldId The world ID
+     * @param packed The packed location
+     * @return The formatted location key
+     */
+    public static String toKey(String worldId, long packed) {
+        return worldId + ":" + unpackX(packed) + ":" + unpackY(packed) + ":" + unpackZ(packed);
+    }
+}
@@ -0,0 +1,324 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Everything stored for one sign: the UUIDs of its hologram entities and, for signs written since
+ * text is stored, its text lines and the side the text faces, so its holograms can be rebuilt.
+ *
+ * Immutable, so records are shared between the table, the journal, region writers and snapshots
+ * without copying; a change replaces the whole record. Signs have at most a few holograms, so up to
+ * {@value #INLINE_IDS} UUIDs are held inline as pairs of primitive longs instead of a list of
+ * {@link UUID} objects; only signs with more spill the rest into an array. Lines are shared between
+ * records through {@link TextInterner}, since many signs repeat the same text.
+ */
+public final class SignRecord {
+
+    /**
+     * Facing of signs stored before text was stored.
+     */
+    public static final byte FACING_UNKNOWN = -1;
+
+    private static final int INLINE_IDS = 3;
+    private static final long[] NO_OVERFLOW = new long[0];
+
+    // Hologram UUIDs as (most, least) significant bits; ids past the inline ones in overflow, two longs each
+    private final int hologramCount;
+    private final long msb0, lsb0, msb1, lsb1, msb2, lsb2;
+    private final long[] overflow;
+    private final List<String> lines;
+    private final byte facing;
+
+    /**
+     * Creates a record.
+     * @param hologramIds The hologram entity UUIDs
+     * @param lines The text lines, top to bottom
+     * @param facing The side the text faces, an index into {@link SignLocation#ADJACENT_OFFSETS},
+     *               or {@link #FACING_UNKNOWN}
+     */
+    public SignRecord(List<UUID> hologramIds, List<String> lines, byte facing) {
+        int count = hologramIds.size();
+        this.hologramCount = count;
+        this.msb0 = count > 0 ? hologramIds.get(0).getMostSignificantBits() : 0;
+        this.lsb0 = count > 0 ? hologramIds.get(0).getLeastSignificantBits() : 0;
+        this.msb1 = count > 1 ? hologramIds.get(1).getMostSignificantBits() : 0;
+        this.lsb1 = count > 1 ? hologramIds.get(1).getLeastSignificantBits() : 0;
+        this.msb2 = count > 2 ? hologramIds.get(2).getMostSignificantBits() : 0;
+        this.lsb2 = count > 2 ? hologramIds.get(2).getLeastSignificantBits() : 0;
+        if (count > INLINE_IDS) {
+            overflow = new long[(count - INLINE_IDS) * 2];
+            for (int i = INLINE_IDS; i < count; i++) {
+                UUID uuid = hologramIds.get(i);
+                overflow[(i - INLINE_IDS) * 2] = uuid.getMostSignificantBits();
+                overflow[(i - INLINE_IDS) * 2 + 1] = uuid.getLeastSignificantBits();
+            }
+        } else {
+            overflow = NO_OVERFLOW;
+        }
+        String[] shared = new String[lines.size()];
+        for (int i = 0; i < shared.length; i++) {
+            shared[i] = TextInterner.intern(lines.get(i));
+        }
+        this.lines = List.of(shared);
+        this.facing = facing;
+    }
+
+    /**
+     * Creates a record of a sign whose text is not known.
+     * @param hologramIds The hologram entity UUIDs
+     * @return The record
+     */
+    public static SignRecord ofHolograms(List<UUID> hologramIds) {
+        return new SignRecord(hologramIds, List.of(), FACING_UNKNOWN);
+    }
+
+    /**
+     * Gets the hologram entity UUIDs. Builds a new list on every call; use {@link #getHologramCount()}
+     * with {@link #msbAt(int)} and {@link #lsbAt(int)}, or {@link #forEachHologram}, where that matters.
+     * @return The UUIDs, unmodifiable
+     */
+    public List<UUID> getHologramIds() {
+        UUID[] ids = new UUID[hologramCount];
+        for (int i = 0; i < hologramCount; i++) {
+            ids[i] = getHologramId(i);
+        }
+        return List.of(ids);
+    }
+
+    /**
+     * Gets the number of hologram entities.
+     * @return The hologram count
+     */
+    public int getHologramCount() {
+        return hologramCount;
+    }
+
+    /**
+     * Gets one hologram entity UUID.
+     * @param index The index, between 0 and {@link #getHologramCount()}
+     * @return The UUID
+     */
+    public UUID getHologramId(int index) {
+        return new UUID(msbAt(index), lsbAt(index));
+    }
+
+    /**
+     * Checks whether a UUID is one of this sign's holograms, without allocating.
+     * @param uuid The UUID
+     * @return true if the sign lists it
+     */
+    public boolean containsHologram(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        for (int i = 0; i < hologramCount; i++) {
+            if (msbAt(i) == msb && lsbAt(i) == lsb) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether this sign's holograms are exactly the given UUIDs, in order, without allocating.
+     * @param uuids The UUIDs
+     * @return true if they match
+     */
+    public boolean hasHolograms(List<UUID> uuids) {
+        if (uuids.size() != hologramCount) {
+            return false;
+        }
+        for (int i = 0; i < hologramCount; i++) {
+            UUID uuid = uuids.get(i);
+            if (msbAt(i) != uuid.getMostSignificantBits() || lsbAt(i) != uuid.getLeastSignificantBits()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Passes each hologram UUID to an action as its two halves, without allocating.
+     * @param action The action
+     */
+    public void forEachHologram(HologramIdConsumer action) {
+        for (int i = 0; i < hologramCount; i++) {
+            action.accept(msbAt(i), lsbAt(i));
+        }
+    }
+
+    /**
+     * Gets the text lines.
+     * @return The lines, top to bottom, unmodifiable; empty if the text is not known
+     */
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets the side the text faces.
+     * @return An index into {@link SignLocation#ADJACENT_OFFSETS}, or {@link #FACING_UNKNOWN}
+     */
+    public byte getFacing() {
+        return facing;
+    }
+
+    /**
+     * Checks whether this record holds enough to rebuild the sign's holograms.
+     * @return true if the text and facing are known
+     */
+    public boolean hasText() {
+        return !lines.isEmpty() && facing >= 0 && facing < SignLocation.ADJACENT_OFFSETS.length;
+    }
+
+    /**
+     * Creates a copy with one more hologram UUID.
+     * @param hologramId The UUID to append
+     * @return The new record
+     */
+    public SignRecord withHologram(UUID hologramId) {
+        List<UUID> ids = new ArrayList<>(hologramCount + 1);
+        ids.addAll(getHologramIds());
+        ids.add(hologramId);
+        return new SignRecord(ids, lines, facing);
+    }
+
+    /**
+     * Gets the number of bytes {@link #writeTo} produces.
+     * @return The encoded size
+     */
+    int encodedSize() {
+        int size = 1 + Math.min(hologramCount, 255) * 16 + 1 + 1;
+        for (int i = 0; i < Math.min(lines.size(), 255); i++) {
+            size += 2 + lineBytes(lines.get(i)).length;
+        }
+        return size;
+    }
+
+    /**
+     * Encodes this record:
+     * {@code [byte uuidCount][uuidCount x (long msb, long lsb)][byte facing][byte lineCount][lineCount x (short length, UTF-8)]}.
+     * @param buf The buffer to write to
+     */
+    void writeTo(ByteBuffer buf) {
+        int count = Math.min(hologramCount, 255);
+        buf.put((byte) count);
+        for (int i = 0; i < count; i++) {
+            buf.putLong(msbAt(i)).putLong(lsbAt(i));
+        }
+        buf.put(facing);
+        int lineCount = Math.min(lines.size(), 255);
+        buf.put((byte) lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            byte[] bytes = lineBytes(lines.get(i));
+            buf.putShort((short) bytes.length).put(bytes);
+        }
+    }
+
+    /**
+     * Decodes a record written by {@link #writeTo}, or only its UUID part if the data predates stored text.
+     * @param buf The buffer to read from
+     * @param withText false for data holding only {@code [byte uuidCount][uuids]}
+     * @return The record
+     */
+    static SignRecord readFrom(ByteBuffer buf, boolean withText) {
+        int count = buf.get() & 0xFF;
+        List<UUID> uuids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            uuids.add(new UUID(buf.getLong(), buf.getLong()));
+        }
+        if (!withText) {
+            return ofHolograms(uuids);
+        }
+        byte facing = buf.get();
+        int lineCount = buf.get() & 0xFF;
+        List<String> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+            buf.get(bytes);
+            lines.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return new SignRecord(uuids, lines, facing);
+    }
+
+    /**
+     * Gets the most significant bits of one hologram UUID, without allocating.
+     * @param index The index, between 0 and {@link #getHologramCount()}
+     * @return The bits
+     */
+    public long msbAt(int index) {
+        return switch (index) {
+            case 0 -> msb0;
+            case 1 -> msb1;
+            case 2 -> msb2;
+            default -> overflow[(index - INLINE_IDS) * 2];
+        };
+    }
+
+    /**
+     * Gets the least significant bits of one hologram UUID, without allocating.
+     * @param index The index, between 0 and {@link #getHologramCount()}
+     * @return The bits
+     */
+    public long lsbAt(int index) {
+        return switch (index) {
+            case 0 -> lsb0;
+            case 1 -> lsb1;
+            case 2 -> lsb2;
+            default -> overflow[(index - INLINE_IDS) * 2 + 1];
+        };
+    }
+
+    /**
+     * Encodes a line, cut to what fits the length prefix.
+     */
+    private static byte[] lineBytes(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= 0xFFFF) {
+            return bytes;
+        }
+        return line.substring(0, 0xFFFF / 3).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SignRecord)) {
+            return false;
+        }
+        SignRecord other = (SignRecord) o;
+        return facing == other.facing && hologramCount == other.hologramCount
+            && msb0 == other.msb0 && lsb0 == other.lsb0 && msb1 == other.msb1 && lsb1 == other.lsb1
+            && msb2 == other.msb2 && lsb2 == other.lsb2 && Arrays.equals(overflow, other.overflow)
+            && lines.equals(other.lines);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = hologramCount;
+        for (int i = 0; i < hologramCount; i++) {
+            hash = hash * 31 + Long.hashCode(msbAt(i) ^ lsbAt(i));
+        }
+        return (hash * 31 + lines.hashCode()) * 31 + facing;
+    }
+
+    /**
+     * Receives hologram UUIDs as their (most, least) significant bits.
+     */
+    @FunctionalInterface
+    public interface HologramIdConsumer {
+
+        /**
+         * Receives one UUID.
+         * @param msb The most significant bits
+         * @param lsb The least significant bits
+         */
+        void accept(long msb, long lsb);
+    }
+}
@@ -0,0 +1,230 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistent storage of sign hologram mappings: the operations the rest of the plugin reads and writes
+ * signs through. {@link SignHologramStorage} is the implementation; how it keeps each world's signs is
+ * chosen with the engine passed to its constructor (region files, a memory-mapped table or an embedded
+ * SQL database), and its statistics are only available on it.
+ *
+ * Implementations must be safe to call from any world thread, and never make it wait for disk: a change
+ * to a world whose signs are still loading is queued and applied, in order, once they are loaded.
+ */
+public interface SignStorage {
+
+    /**
+     * Starts loading a world's shard in the background. Call when the world is added.
+     * Does nothing if the shard is already loaded or loading.
+     * @param worldId The world ID
+     */
+    void loadWorldAsync(String worldId);
+
+    /**
+     * Flushes and unloads a world's shard in the background. Call when the world is removed.
+     * @param worldId The world ID
+     */
+    void unloadWorld(String worldId);
+
+    /**
+     * Pages a chunk's signs into memory. Call when the game loads a chunk.
+     * The signs are read on the save thread; until they are in, lookups in the chunk find no signs, and
+     * changes to it are applied once they are. If the world's shard is still loading, the chunk is paged
+     * in as soon as it is published.
+     * @param worldId The world ID
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return Completes, on the save thread, once the chunk's signs are in memory
+     */
+    CompletableFuture<Void> onChunkLoad(String worldId, int chunkX, int chunkZ);
+
+    /**
+     * Pages a chunk's signs out of memory once they are persisted. Call when the game unloads a chunk.
+     * @param worldId The world ID
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     */
+    void onChunkUnload(String worldId, int chunkX, int chunkZ);
+
+    /**
+     * Gets the number of worlds whose shard is loaded.
+     * @return The loaded world count
+     */
+    int getLoadedWorldCount();
+
+    /**
+     * Checks whether a world's shard is loaded, so that lookups in it are authoritative.
+     * @param worldId The world ID
+     * @return true if the world's signs are loaded
+     */
+    boolean isWorldLoaded(String worldId);
+
+    /**
+     * Registers a sign hologram mapping.
+     * @param worldId The world ID
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param entityUuid The hologram entity UUID
+     */
+    void registerSignHologram(String worldId, int x, int y, int z, UUID entityUuid);
+
+    /**
+     * Gets all hologram UUIDs for a sign location.
+     * @param worldId The world ID
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return List of hologram UUIDs, or null if none exist
+     */
+    List<UUID> getSignHolograms(String worldId, int x, int y, int z);
+
+    /**
+     * Gets the stored record of a sign, including its text if known.
+     * @param worldId The world ID
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return The record, or null if no sign is tracked there or the world is not loaded
+     */
+    SignRecord getSign(String worldId, int x, int y, int z);
+
+    /**
+     * Stores a sign, replacing any record at its location.
+     * @param worldId The world ID
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param record The complete record of the sign
+     */
+    void putSign(String worldId, int x, int y, int z, SignRecord record);
+
+    /**
+     * Removes all hologram mappings for a sign location.
+     * Returns the UUIDs that were removed.
+     * @param worldId The world ID
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return List of removed hologram UUIDs, or null if none existed or the world is still loading
+     *         (the removal is then applied once it is loaded, and orphaned holograms are left to the reconciler)
+     */
+    List<UUID> removeSignHolograms(String worldId, int x, int y, int z);
+
+    /**
+     * Gets all sign hologram mappings.
+     * Builds legacy "worldId:x:y:z" keys, so this is intended for debugging and tooling only.
+     * Only resident signs of loaded worlds are included.
+     * @return A copy of all sign hologram mappings
+     */
+    Map<String, List<UUID>> getAllSignHolograms();
+
+    /**
+     * Gets the number of tracked signs resident in memory across all loaded worlds.
+     * Signs in chunks that are not loaded are not counted.
+     * @return The sign count
+     */
+    int getSignCount();
+
+    /**
+     * Gets the locations of all tracked signs in chunks the game has loaded.
+     * @param worldId The world ID
+     * @return The packed locations (see {@link SignLocation}), empty if the world is not loaded
+     */
+    long[] getLoadedSigns(String worldId);
+
+    /**
+     * Checks if there is a tracked sign at the specified location.
+     * @param worldId The world ID
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return true if a sign exists at this location, false otherwise
+     */
+    boolean hasSignAt(String worldId, int x, int y, int z);
+
+    /**
+     * Checks whether a tracked sign might exist at a block or any of its horizontal neighbours, in any loaded chunk.
+     * Backed by a counting Bloom filter over chunk columns, so it needs no world lookup, never allocates,
+     * and is exact for loaded chunks when it returns false. Callers should skip all other storage work in that case.
+     * @param x The block x coordinate
+     * @param z The block z coordinate
+     * @return false if no tracked sign can be there, true if one might
+     */
+    boolean mightHaveSignNear(int x, int z);
+
+    /**
+     * Checks which horizontal neighbours of a block hold a tracked sign.
+     * Resolves the block's chunk bucket once and reuses it for neighbours in the same chunk,
+     * so a block in a chunk without signs costs a single lookup.
+     * @param worldId The world ID
+     * @param x The block x coordinate
+     * @param y The block y coordinate
+     * @param z The block z coordinate
+     * @return A bit mask where bit {@code i} is set if {@link SignLocation#ADJACENT_OFFSETS}[i] holds a tracked sign
+     */
+    int getAdjacentSignMask(String worldId, int x, int y, int z);
+
+    /**
+     * Gets all tracked signs in a chunk column.
+     * @param worldId The world ID
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return The packed sign locations (see {@link SignLocation}), empty if none
+     */
+    long[] getSignsInChunk(String worldId, int chunkX, int chunkZ);
+
+    /**
+     * Gets all tracked signs inside a box. Bounds are inclusive.
+     * @param worldId The world ID
+     * @param minX The minimum x coordinate
+     * @param minY The minimum y coordinate
+     * @param minZ The minimum z coordinate
+     * @param maxX The maximum x coordinate
+     * @param maxY The maximum y coordinate
+     * @param maxZ The maximum z coordinate
+     * @return The packed sign locations (see {@link SignLocation}), empty if none
+     */
+    long[] getSignsInBox(String worldId, int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+
+    /**
+     * Exports every sign of all loaded worlds, in memory or on disk, to a JSON file in the format
+     * {@link #importJson} reads.
+     * @param target The file to write
+     * @throws IOException If the file cannot be written
+     */
+    void exportJson(Path target) throws IOException;
+
+    /**
+     * Imports mappings from a JSON file in the original format. Imported entries replace
+     * existing entries at the same location and are journaled like any other change.
+     * Entries of worlds that are not loaded start their load and are applied once it completes.
+     * @param source The file to read
+     * @return The number of imported entries
+     * @throws IOException If the file cannot be read or parsed
+     */
+    int importJson(Path source) throws IOException;
+
+    /**
+     * Saves changed worlds asynchronously. Requests made while one is still queued are
+     * folded into it, so a burst of calls causes a single save.
+     * Safe to call from any thread.
+     */
+    void saveAsync();
+
+    /**
+     * Saves changed worlds synchronously (blocks until complete).
+     */
+    void saveSync();
+
+    /**
+     * Shuts down the autosave executor and performs final save.
+     * Must be called on plugin shutdown to ensure data is saved and threads are cleaned up.
+     */
+    void shutdown();
+}
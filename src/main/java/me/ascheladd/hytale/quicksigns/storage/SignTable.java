@@ -0,0 +1,161 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * The signs of one world, keyed by packed location (see {@link SignLocation}).
+ * Implemented by {@link WorldSigns}, which pages chunks in and out of region files, by
+ * {@link MappedSignTable}, which keeps every sign in a memory-mapped file, and by {@link SqlSignTable},
+ * which keeps them in an embedded database; {@link StorageEngine} picks one.
+ *
+ * Implementations are thread-safe. Each world is normally only touched by its own thread,
+ * apart from the save thread flushing it.
+ */
+interface SignTable {
+
+    /**
+     * Gets the world ID this table belongs to.
+     * @return The world ID
+     */
+    String getWorldId();
+
+    /**
+     * Tells the table the game loaded a chunk. Runs on the save thread, since it may read the chunk's signs from disk.
+     * @param chunkKey The chunk key
+     */
+    void pageIn(long chunkKey);
+
+    /**
+     * Tells the table the game unloaded a chunk. Runs on the save thread, after the chunk's page-in.
+     * @param chunkKey The chunk key
+     */
+    void pageOut(long chunkKey);
+
+    /**
+     * Appends a hologram UUID to the sign at a location.
+     * @param location The packed location
+     * @param entityUuid The hologram entity UUID
+     */
+    void add(long location, UUID entityUuid);
+
+    /**
+     * Replaces the sign at a location.
+     * @param location The packed location
+     * @param record The complete record for the location
+     */
+    void set(long location, SignRecord record);
+
+    /**
+     * Gets the sign at a location.
+     * @param location The packed location
+     * @return The record, or null if no sign is tracked there
+     */
+    SignRecord get(long location);
+
+    /**
+     * Removes the sign at a location.
+     * @param location The packed location
+     * @return The removed record, or null if no sign was tracked there
+     */
+    SignRecord remove(long location);
+
+    /**
+     * Applies a replayed or migrated put without journaling it again.
+     * @param location The packed location
+     * @param record The complete record for the location
+     */
+    void replayPut(long location, SignRecord record);
+
+    /**
+     * Applies a replayed remove without journaling it again.
+     * @param location The packed location
+     */
+    void replayRemove(long location);
+
+    /**
+     * Checks whether a sign is tracked at a location. Never allocates for chunks the game has loaded.
+     * @param location The packed location
+     * @return true if a sign is tracked there
+     */
+    boolean contains(long location);
+
+    /**
+     * Checks which horizontal neighbours of a block hold a tracked sign. Never allocates for chunks the game has loaded.
+     * @param x The block x coordinate
+     * @param y The block y coordinate
+     * @param z The block z coordinate
+     * @return A bit mask where bit {@code i} is set if {@link SignLocation#ADJACENT_OFFSETS}[i] holds a sign
+     */
+    int adjacentSignMask(int x, int y, int z);
+
+    /**
+     * Gets the locations of all signs in a chunk column.
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return The packed locations, in ascending order
+     */
+    long[] signsInChunk(int chunkX, int chunkZ);
+
+    /**
+     * Gets the locations of all signs inside a box (bounds inclusive).
+     * @param minX The minimum x coordinate
+     * @param minY The minimum y coordinate
+     * @param minZ The minimum z coordinate
+     * @param maxX The maximum x coordinate
+     * @param maxY The maximum y coordinate
+     * @param maxZ The maximum z coordinate
+     * @return The packed locations
+     */
+    long[] signsInBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+
+    /**
+     * Gets the locations of all signs in chunks the game has loaded.
+     * @return The packed locations
+     */
+    long[] loadedLocations();
+
+    /**
+     * Gets the number of signs held in memory.
+     * @return The sign count
+     */
+    int size();
+
+    /**
+     * Visits every sign held in memory, as of one point in time.
+     * @param consumer Receives each location and record
+     */
+    void forEachResident(LongObjectMap.EntryConsumer<SignRecord> consumer);
+
+    /**
+     * Visits every chunk with tracked signs, in memory or on disk, one chunk at a time.
+     * @param visitor Receives each chunk; it must not modify the bucket
+     * @throws IOException If the signs cannot be read or the visitor fails
+     */
+    void forEachChunk(ChunkVisitor visitor) throws IOException;
+
+    /**
+     * Makes every change so far durable. Runs on the save thread during a checkpoint.
+     * @throws IOException If writing fails; the changes are retried next time
+     */
+    void flush() throws IOException;
+
+    /**
+     * Withdraws this world's chunks from the shared filter and releases the table's resources
+     * when the world is unloaded. The table must not be used afterwards.
+     */
+    void detach();
+
+    /**
+     * Receives chunks from {@link #forEachChunk}.
+     */
+    @FunctionalInterface
+    interface ChunkVisitor {
+        /**
+         * Visits one chunk.
+         * @param bucket The chunk's signs, unchanging while the visitor runs; must not be modified
+         * @throws IOException If processing fails
+         */
+        void visit(ChunkBucket bucket) throws IOException;
+    }
+}
@@ -0,0 +1,60 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File helpers shared by the snapshot formats.
+ */
+final class SnapshotFiles {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private SnapshotFiles() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Writes a file via a temp file, fsync and atomic move, so a crash never leaves a half-written target.
+     * @param target The file to replace
+     * @param writer Writes the content to a buffered stream
+     * @throws IOException If writing or moving fails; the target is left untouched
+     */
+    static void writeAtomically(Path target, Writer writer) throws IOException {
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            writer.write(out);
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes file content.
+     */
+    @FunctionalInterface
+    interface Writer {
+        /**
+         * Writes the content. The stream must not be closed.
+         * @param out The buffered output stream
+         * @throws IOException If writing fails
+         */
+        void write(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,31 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+/**
+ * Whole-file snapshot formats written by earlier versions, still read when migrating old storage.
+ */
+enum SnapshotFormat {
+    /**
+     * Compact versioned binary file, loaded through a memory-mapped buffer.
+     */
+    BINARY(".bin"),
+
+    /**
+     * Human-readable JSON file (the original format).
+     */
+    JSON(".json");
+
+    private final String extension;
+
+    SnapshotFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Gets the snapshot file name for this format.
+     * @param baseName The file name without extension
+     * @return The file name
+     */
+    String getFileName(String baseName) {
+        return baseName + extension;
+    }
+}
@@ -0,0 +1,646 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * Sign table of one world kept in an embedded SQLite database ({@code signs.db} in the shard directory),
+ * so chunk and box queries run against indexes on disk instead of loading the world's signs into the heap.
+ *
+ * Table layout, one row per sign:
+ * <pre>
+ * signs(location INTEGER PRIMARY KEY, chunk INTEGER, x INTEGER, y INTEGER, z INTEGER, record BLOB)
+ *   index on chunk, index on (x, z, y); record is an encoded {@link SignRecord}
+ * </pre>
+ * The world is the shard itself, so each world has a database of its own rather than a world column.
+ *
+ * Chunks the game has loaded are cached in memory and kept up to date with every change, so lookups
+ * on the block break path never reach the database. Changes are journaled like in {@link WorldSigns} and
+ * buffered until the next checkpoint, which writes them in one transaction through batched prepared
+ * statements; until then, queries see them on top of the database rows.
+ *
+ * Reads use one connection under the table lock and checkpoints another, in write-ahead-log mode, so a
+ * checkpoint never blocks the world thread. All methods are synchronized, except {@link #flush} and
+ * {@link #forEachChunk}, which only lock to capture and publish what they need.
+ */
+class SqlSignTable implements SignTable {
+
+    private static final String DATABASE_FILE_NAME = WorldShard.BASE_NAME + ".db";
+    private static final String DRIVER_CLASS = "org.sqlite.JDBC";
+
+    /**
+     * Rows sent to the database per batch within a checkpoint's transaction.
+     */
+    private static final int BATCH_SIZE = 512;
+
+    /**
+     * Marks a buffered remove.
+     */
+    private static final SignRecord REMOVED = SignRecord.ofHolograms(List.of());
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS signs (location INTEGER PRIMARY KEY, chunk INTEGER NOT NULL,"
+            + " x INTEGER NOT NULL, y INTEGER NOT NULL, z INTEGER NOT NULL, record BLOB NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS signs_chunk ON signs (chunk)",
+        "CREATE INDEX IF NOT EXISTS signs_position ON signs (x, z, y)"
+    };
+
+    private final String worldId;
+    private final Path directory;
+    private final SignChunkFilter filter;
+    private final SignJournal journal;
+    private final HytaleLogger logger;
+
+    private Connection reader;
+    private Connection writer;
+    private PreparedStatement selectOne;
+    private PreparedStatement selectChunk;
+    private PreparedStatement selectBox;
+
+    // Loaded chunks, including those without signs; kept in step with every change
+    private final LongObjectMap<ChunkBucket> loaded = new LongObjectMap<>();
+    private int loadedSignCount;
+
+    // Changes not yet in the database by location, REMOVED for removes; flushing is being written right now
+    private LongObjectMap<SignRecord> pending = new LongObjectMap<>();
+    private LongObjectMap<SignRecord> flushing = new LongObjectMap<>();
+
+    /**
+     * Creates a table. Nothing is read until {@link #open()} is called.
+     * @param worldId The world ID
+     * @param directory The shard directory holding the database
+     * @param filter The shared chunk filter, told whenever a loaded chunk gains its first or loses its last sign
+     * @param journal The journal of this world's shard
+     * @param logger The logger instance
+     */
+    SqlSignTable(String worldId, Path directory, SignChunkFilter filter, SignJournal journal, HytaleLogger logger) {
+        this.worldId = worldId;
+        this.directory = directory;
+        this.filter = filter;
+        this.journal = journal;
+        this.logger = logger;
+    }
+
+    /**
+     * Opens the database, creating its schema if needed, and prepares the queries.
+     * @throws IOException If the driver is missing or the database cannot be opened
+     */
+    synchronized void open() throws IOException {
+        try {
+            writer = connect(directory);
+            try (Statement statement = writer.createStatement()) {
+                for (String sql : SCHEMA) {
+                    statement.executeUpdate(sql);
+                }
+            }
+            reader = connect(directory);
+            selectOne = reader.prepareStatement("SELECT record FROM signs WHERE location = ?");
+            selectChunk = reader.prepareStatement("SELECT location, record FROM signs WHERE chunk = ? ORDER BY location");
+            selectBox = reader.prepareStatement(
+                "SELECT location FROM signs WHERE x BETWEEN ? AND ? AND z BETWEEN ? AND ? AND y BETWEEN ? AND ?");
+        } catch (SQLException e) {
+            closeQuietly();
+            throw new IOException("Failed to open sign database of world " + worldId + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks whether a shard directory holds a database written by this engine.
+     * @param directory The shard directory
+     * @return true if the database exists
+     */
+    static boolean exists(Path directory) {
+        return Files.exists(directory.resolve(DATABASE_FILE_NAME));
+    }
+
+    /**
+     * Lists the files of this engine in a shard directory, so they can be moved aside after a migration.
+     * @param directory The shard directory
+     * @return The database file and any write-ahead log left next to it
+     */
+    static List<Path> listFiles(Path directory) {
+        List<Path> files = new ArrayList<>(3);
+        for (String suffix : new String[] {"", "-wal", "-shm"}) {
+            Path file = directory.resolve(DATABASE_FILE_NAME + suffix);
+            if (Files.exists(file)) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Reads every sign of a database, then closes it so the files can be moved aside right after.
+     * @param directory The shard directory
+     * @param worldId The world ID handed to the consumer
+     * @param consumer Receives each sign entry
+     * @return The number of entries read
+     * @throws IOException If the database cannot be read
+     */
+    static int read(Path directory, String worldId, BinarySnapshot.EntryConsumer consumer) throws IOException {
+        int entries = 0;
+        try (Connection connection = connect(directory);
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT location, record FROM signs")) {
+            while (rows.next()) {
+                consumer.accept(worldId, rows.getLong(1), decode(rows.getBytes(2)));
+                entries++;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read sign database: " + e.getMessage(), e);
+        }
+        return entries;
+    }
+
+    @Override
+    public String getWorldId() {
+        return worldId;
+    }
+
+    @Override
+    public synchronized void pageIn(long chunkKey) {
+        if (loaded.containsKey(chunkKey)) {
+            return;
+        }
+        ChunkBucket bucket = readChunk(chunkKey);
+        loaded.put(chunkKey, bucket);
+        if (bucket.size() > 0) {
+            filter.add(chunkKey);
+            loadedSignCount += bucket.size();
+        }
+    }
+
+    @Override
+    public synchronized void pageOut(long chunkKey) {
+        ChunkBucket bucket = loaded.remove(chunkKey);
+        if (bucket != null && bucket.size() > 0) {
+            filter.remove(chunkKey);
+            loadedSignCount -= bucket.size();
+        }
+    }
+
+    @Override
+    public synchronized void add(long location, UUID entityUuid) {
+        SignRecord existing = get(location);
+        SignRecord record = existing != null ? existing.withHologram(entityUuid) : SignRecord.ofHolograms(List.of(entityUuid));
+        put(location, record);
+        journal.appendPut(worldId, location, record);
+    }
+
+    @Override
+    public synchronized void set(long location, SignRecord record) {
+        put(location, record);
+        journal.appendPut(worldId, location, record);
+    }
+
+    @Override
+    public synchronized SignRecord get(long location) {
+        ChunkBucket bucket = loaded.get(SignLocation.chunkKeyOf(location));
+        if (bucket != null) {
+            return bucket.get(location);
+        }
+        SignRecord change = bufferedChange(location);
+        if (change != null) {
+            return change != REMOVED ? change : null;
+        }
+        return readOne(location);
+    }
+
+    @Override
+    public synchronized SignRecord remove(long location) {
+        SignRecord removed = removeEntry(location);
+        if (removed != null) {
+            journal.appendRemove(worldId, location);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized void replayPut(long location, SignRecord record) {
+        put(location, record);
+    }
+
+    @Override
+    public synchronized void replayRemove(long location) {
+        removeEntry(location);
+    }
+
+    /**
+     * Checks whether a sign is tracked at a location. Never allocates for loaded chunks.
+     * @param location The packed location
+     * @return true if a sign is tracked there
+     */
+    @Override
+    public synchronized boolean contains(long location) {
+        ChunkBucket bucket = loaded.get(SignLocation.chunkKeyOf(location));
+        return bucket != null ? bucket.contains(location) : get(location) != null;
+    }
+
+    @Override
+    public synchronized int adjacentSignMask(int x, int y, int z) {
+        int mask = 0;
+        int[][] offsets = SignLocation.ADJACENT_OFFSETS;
+        for (int i = 0; i < offsets.length; i++) {
+            if (contains(SignLocation.pack(x + offsets[i][0], y, z + offsets[i][1]))) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public synchronized long[] signsInChunk(int chunkX, int chunkZ) {
+        long chunkKey = SignLocation.chunkKey(chunkX, chunkZ);
+        ChunkBucket bucket = loaded.get(chunkKey);
+        if (bucket == null) {
+            bucket = readChunk(chunkKey);
+        }
+        long[] out = new long[bucket.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = bucket.locationAt(i);
+        }
+        return out;
+    }
+
+    /**
+     * Gets the locations of all signs inside a box (bounds inclusive), through the position index.
+     * Buffered changes are applied on top of the rows found.
+     */
+    @Override
+    public synchronized long[] signsInBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        LongObjectMap<Boolean> found = new LongObjectMap<>();
+        try {
+            selectBox.setInt(1, minX);
+            selectBox.setInt(2, maxX);
+            selectBox.setInt(3, minZ);
+            selectBox.setInt(4, maxZ);
+            selectBox.setInt(5, minY);
+            selectBox.setInt(6, maxY);
+            try (ResultSet rows = selectBox.executeQuery()) {
+                while (rows.next()) {
+                    found.put(rows.getLong(1), Boolean.TRUE);
+                }
+            }
+        } catch (SQLException e) {
+            logger.atSevere().log("Failed to query sign database of world " + worldId + ": " + e.getMessage());
+        }
+        LongObjectMap.EntryConsumer<SignRecord> overlay = (location, record) -> {
+            int x = SignLocation.unpackX(location);
+            int y = SignLocation.unpackY(location);
+            int z = SignLocation.unpackZ(location);
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+                if (record == REMOVED) {
+                    found.remove(location);
+                } else {
+                    found.put(location, Boolean.TRUE);
+                }
+            }
+        };
+        flushing.forEach(overlay);
+        pending.forEach(overlay);
+        return found.keys();
+    }
+
+    @Override
+    public synchronized long[] loadedLocations() {
+        long[] out = new long[loadedSignCount];
+        int[] count = {0};
+        loaded.forEach((chunkKey, bucket) -> {
+            for (int i = 0; i < bucket.size(); i++) {
+                out[count[0]++] = bucket.locationAt(i);
+            }
+        });
+        return out;
+    }
+
+    /**
+     * Gets the number of signs in chunks the game has loaded, the only ones held in memory.
+     * @return The loaded sign count
+     */
+    @Override
+    public synchronized int size() {
+        return loadedSignCount;
+    }
+
+    @Override
+    public synchronized void forEachResident(LongObjectMap.EntryConsumer<SignRecord> consumer) {
+        loaded.forEach((chunkKey, bucket) -> {
+            for (int i = 0; i < bucket.size(); i++) {
+                consumer.accept(bucket.locationAt(i), bucket.valueAt(i));
+            }
+        });
+    }
+
+    /**
+     * Visits every chunk with tracked signs by streaming the table in chunk order over a connection of its own,
+     * with the changes buffered when the walk started applied on top. Changes made while the walk is in
+     * progress may or may not be seen.
+     * @param visitor Receives each chunk; it must not modify the bucket
+     * @throws IOException If the database cannot be read or the visitor fails
+     */
+    @Override
+    public void forEachChunk(ChunkVisitor visitor) throws IOException {
+        LongObjectMap<LongObjectMap<SignRecord>> changes = new LongObjectMap<>();
+        synchronized (this) {
+            LongObjectMap.EntryConsumer<SignRecord> group = (location, record) -> {
+                long chunkKey = SignLocation.chunkKeyOf(location);
+                LongObjectMap<SignRecord> chunk = changes.get(chunkKey);
+                if (chunk == null) {
+                    chunk = new LongObjectMap<>();
+                    changes.put(chunkKey, chunk);
+                }
+                chunk.put(location, record);
+            };
+            flushing.forEach(group);
+            pending.forEach(group);
+        }
+
+        try (Connection connection = connect(directory);
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT chunk, location, record FROM signs ORDER BY chunk, location")) {
+            ChunkBucket bucket = null;
+            long chunkKey = 0;
+            while (rows.next()) {
+                long rowChunk = rows.getLong(1);
+                if (bucket == null || rowChunk != chunkKey) {
+                    if (bucket != null) {
+                        visitWithChanges(visitor, chunkKey, bucket, changes.remove(chunkKey));
+                    }
+                    bucket = new ChunkBucket();
+                    chunkKey = rowChunk;
+                }
+                bucket.put(rows.getLong(2), decode(rows.getBytes(3)));
+            }
+            if (bucket != null) {
+                visitWithChanges(visitor, chunkKey, bucket, changes.remove(chunkKey));
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read sign database of world " + worldId + ": " + e.getMessage(), e);
+        }
+
+        // Chunks that only have buffered changes
+        for (long remainingChunk : changes.keys()) {
+            visitWithChanges(visitor, remainingChunk, new ChunkBucket(), changes.get(remainingChunk));
+        }
+    }
+
+    /**
+     * Writes the buffered changes to the database in one transaction, in batches of prepared statements.
+     * The changes stay visible to queries until the transaction has committed.
+     * @throws IOException If the transaction fails; the changes are kept and retried next time
+     */
+    @Override
+    public void flush() throws IOException {
+        LongObjectMap<SignRecord> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            flushing = pending;
+            pending = new LongObjectMap<>();
+            batch = flushing;
+        }
+
+        try {
+            write(batch);
+        } catch (SQLException e) {
+            synchronized (this) {
+                // Newer changes win over the ones that failed to write
+                LongObjectMap<SignRecord> newer = pending;
+                pending = flushing;
+                newer.forEach(pending::put);
+                flushing = new LongObjectMap<>();
+            }
+            throw new IOException("Failed to write sign database of world " + worldId + ": " + e.getMessage(), e);
+        }
+        synchronized (this) {
+            flushing = new LongObjectMap<>();
+        }
+    }
+
+    @Override
+    public synchronized void detach() {
+        loaded.forEach((chunkKey, bucket) -> {
+            if (bucket.size() > 0) {
+                filter.remove(chunkKey);
+            }
+        });
+        loaded.clear();
+        loadedSignCount = 0;
+        closeQuietly();
+    }
+
+    /**
+     * Stores a record at a location, in the cache if its chunk is loaded and in the buffered changes.
+     */
+    private void put(long location, SignRecord record) {
+        long chunkKey = SignLocation.chunkKeyOf(location);
+        ChunkBucket bucket = loaded.get(chunkKey);
+        if (bucket != null && bucket.put(location, record) == null) {
+            loadedSignCount++;
+            if (bucket.size() == 1) {
+                filter.add(chunkKey);
+            }
+        }
+        pending.put(location, record);
+    }
+
+    /**
+     * Removes the entry at a location, buffering the remove if there was one.
+     */
+    private SignRecord removeEntry(long location) {
+        SignRecord removed = get(location);
+        if (removed == null) {
+            return null;
+        }
+        long chunkKey = SignLocation.chunkKeyOf(location);
+        ChunkBucket bucket = loaded.get(chunkKey);
+        if (bucket != null && bucket.remove(location) != null) {
+            loadedSignCount--;
+            if (bucket.size() == 0) {
+                filter.remove(chunkKey);
+            }
+        }
+        pending.put(location, REMOVED);
+        return removed;
+    }
+
+    /**
+     * Gets the newest buffered change of a location.
+     * @return The record, {@link #REMOVED}, or null if the database is current
+     */
+    private SignRecord bufferedChange(long location) {
+        SignRecord change = pending.get(location);
+        return change != null ? change : flushing.get(location);
+    }
+
+    private SignRecord readOne(long location) {
+        try {
+            selectOne.setLong(1, location);
+            try (ResultSet rows = selectOne.executeQuery()) {
+                return rows.next() ? decode(rows.getBytes(1)) : null;
+            }
+        } catch (SQLException e) {
+            logger.atSevere().log("Failed to query sign database of world " + worldId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads a chunk's signs through the chunk index, with buffered changes applied on top.
+     */
+    private ChunkBucket readChunk(long chunkKey) {
+        ChunkBucket bucket = new ChunkBucket();
+        try {
+            selectChunk.setLong(1, chunkKey);
+            try (ResultSet rows = selectChunk.executeQuery()) {
+                while (rows.next()) {
+                    bucket.put(rows.getLong(1), decode(rows.getBytes(2)));
+                }
+            }
+        } catch (SQLException e) {
+            logger.atSevere().log("Failed to query sign database of world " + worldId + ": " + e.getMessage());
+        }
+        LongObjectMap.EntryConsumer<SignRecord> overlay = (location, record) -> {
+            if (SignLocation.chunkKeyOf(location) == chunkKey) {
+                if (record == REMOVED) {
+                    bucket.remove(location);
+                } else {
+                    bucket.put(location, record);
+                }
+            }
+        };
+        flushing.forEach(overlay);
+        pending.forEach(overlay);
+        return bucket;
+    }
+
+    /**
+     * Writes changes in one transaction on the checkpoint connection, rolling back if any statement fails.
+     */
+    private void write(LongObjectMap<SignRecord> batch) throws SQLException {
+        writer.setAutoCommit(false);
+        try (PreparedStatement upsert = writer.prepareStatement(
+                 "INSERT OR REPLACE INTO signs (location, chunk, x, y, z, record) VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement delete = writer.prepareStatement("DELETE FROM signs WHERE location = ?")) {
+            int[] queued = {0, 0};
+            SQLException[] failure = {null};
+            batch.forEach((location, record) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                try {
+                    if (record == REMOVED) {
+                        delete.setLong(1, location);
+                        delete.addBatch();
+                        if (++queued[1] == BATCH_SIZE) {
+                            delete.executeBatch();
+                            queued[1] = 0;
+                        }
+                    } else {
+                        upsert.setLong(1, location);
+                        upsert.setLong(2, SignLocation.chunkKeyOf(location));
+                        upsert.setInt(3, SignLocation.unpackX(location));
+                        upsert.setInt(4, SignLocation.unpackY(location));
+                        upsert.setInt(5, SignLocation.unpackZ(location));
+                        upsert.setBytes(6, encode(record));
+                        upsert.addBatch();
+                        if (++queued[0] == BATCH_SIZE) {
+                            upsert.executeBatch();
+                            queued[0] = 0;
+                        }
+                    }
+                } catch (SQLException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            upsert.executeBatch();
+            delete.executeBatch();
+            writer.commit();
+        } catch (SQLException | RuntimeException e) {
+            writer.rollback();
+            throw e;
+        } finally {
+            writer.setAutoCommit(true);
+        }
+    }
+
+    private static void visitWithChanges(ChunkVisitor visitor, long chunkKey, ChunkBucket bucket,
+                                         LongObjectMap<SignRecord> changes) throws IOException {
+        if (changes != null) {
+            changes.forEach((location, record) -> {
+                if (record == REMOVED) {
+                    bucket.remove(location);
+                } else {
+                    bucket.put(location, record);
+                }
+            });
+        }
+        if (bucket.size() > 0) {
+            visitor.visit(bucket);
+        }
+    }
+
+    /**
+     * Opens a connection to a shard's database in write-ahead-log mode, with every commit synced to disk
+     * before it returns, so a committed checkpoint survives a power loss without the journal.
+     */
+    private static Connection connect(Path directory) throws SQLException {
+        try {
+            // Not bundled with the plugin: the driver must be on the server's class path
+            Class.forName(DRIVER_CLASS);
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("SQLite driver " + DRIVER_CLASS + " is not available", e);
+        }
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + directory.resolve(DATABASE_FILE_NAME).toAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            // Sync the log on every commit: the journal is discarded as soon as flush returns
+            statement.execute("PRAGMA synchronous=FULL");
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    private void closeQuietly() {
+        for (AutoCloseable closeable : Arrays.asList(selectOne, selectChunk, selectBox, reader, writer)) {
+            if (closeable == null) {
+                continue;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.atWarning().log("Failed to close sign database of world " + worldId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static byte[] encode(SignRecord record) {
+        ByteBuffer buf = ByteBuffer.allocate(record.encodedSize());
+        record.writeTo(buf);
+        return buf.array();
+    }
+
+    private static SignRecord decode(byte[] data) {
+        return SignRecord.readFrom(ByteBuffer.wrap(data), true);
+    }
+}
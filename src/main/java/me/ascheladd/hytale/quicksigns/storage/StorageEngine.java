@@ -0,0 +1,54 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+/**
+ * How a world's signs are kept, selected when the {@link SignHologramStorage} is created.
+ * A shard written by another engine is migrated the next time its world loads.
+ */
+enum StorageEngine {
+    /**
+     * Chunks are paged in from region files as the game loads them, and every change is journaled
+     * ({@link WorldSigns}). Memory is bounded by the loaded area.
+     */
+    REGIONS("Regions"),
+
+    /**
+     * Every sign lives in a fixed-slot hash table in a memory-mapped file ({@link MappedSignTable}).
+     * Changes persist through the mapping without a journal or region rewrites, at the cost of
+     * mapping the whole table.
+     */
+    MAPPED("Mapped"),
+
+    /**
+     * Signs are rows of an embedded SQLite database indexed by chunk and position ({@link SqlSignTable}).
+     * Changes are journaled and written in one transaction per checkpoint; only loaded chunks are cached.
+     */
+    SQL("Sql");
+
+    private final String configName;
+
+    StorageEngine(String configName) {
+        this.configName = configName;
+    }
+
+    /**
+     * Gets the name of this engine in the configuration.
+     * @return The configuration name
+     */
+    String getConfigName() {
+        return configName;
+    }
+
+    /**
+     * Looks up an engine by its configuration name, ignoring case.
+     * @param name The configuration name
+     * @return The engine, or null if no engine has that name
+     */
+    static StorageEngine fromConfigName(String name) {
+        for (StorageEngine engine : values()) {
+            if (engine.configName.equalsIgnoreCase(name)) {
+                return engine;
+            }
+        }
+        return null;
+    }
+}
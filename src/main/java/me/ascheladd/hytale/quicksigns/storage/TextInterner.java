@@ -0,0 +1,195 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares one {@link String} instance between all signs showing the same line, so thousands of signs
+ * reading "SHOP" or "&lt;- Spawn" hold one copy of the text in their records, and in their nameplates
+ * when each line is its own hologram. A single-entity nameplate holds all lines of its sign joined
+ * into one string, which is not shared.
+ *
+ * Lines are held weakly: once no record or nameplate refers to a line any more, it is collected
+ * and drops out of the table on its own, so the table never outgrows the text actually in use.
+ * Lookups take no lock, since every sign record decoded from storage passes through here.
+ * How much is shared is measured on demand from the live records, see {@link Usage}.
+ */
+public final class TextInterner {
+
+    // Weak reference to each shared line, keyed by itself; looked up with a Probe holding the line
+    private static final ConcurrentHashMap<Object, LineRef> LINES = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<String> COLLECTED = new ReferenceQueue<>();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private TextInterner() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Gets the shared instance of a line, making this one the shared instance if the line is new.
+     * @param line The line
+     * @return An equal line, shared with every other caller that passed it
+     */
+    public static String intern(String line) {
+        expungeCollected();
+        Probe probe = new Probe(line);
+        while (true) {
+            LineRef existing = LINES.get(probe);
+            String shared = existing != null ? existing.get() : null;
+            if (shared != null) {
+                return shared;
+            }
+            // A collected entry is never equal to a new one, so this adds beside it until it is expunged
+            LineRef ref = new LineRef(line, COLLECTED);
+            LineRef raced = LINES.putIfAbsent(ref, ref);
+            if (raced == null) {
+                return line;
+            }
+            shared = raced.get();
+            if (shared != null) {
+                return shared;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of distinct lines currently shared. Lines collected since the last lookup may
+     * still be counted.
+     * @return The distinct line count
+     */
+    public static int getDistinctLineCount() {
+        expungeCollected();
+        return LINES.size();
+    }
+
+    /**
+     * Drops the entries of lines that were collected. Costs a single read while nothing was collected.
+     */
+    private static void expungeCollected() {
+        Reference<? extends String> ref;
+        while ((ref = COLLECTED.poll()) != null) {
+            LINES.remove(ref, ref);
+        }
+    }
+
+    /**
+     * Estimates the heap size of a string with compact strings: the object, and its byte array
+     * at one byte per character, or two if any character is outside Latin-1.
+     */
+    private static long estimateSize(String line) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        long array = 16 + (long) line.length() * bytesPerChar;
+        return 24 + ((array + 7) & ~7L);
+    }
+
+    /**
+     * How much a set of lines currently held, such as those of the resident sign records, shares:
+     * how many references point at how many distinct instances, and the bytes the repeated
+     * references would take as copies of their own.
+     */
+    public static final class Usage {
+        private final IdentityHashMap<String, Boolean> distinct = new IdentityHashMap<>();
+        private long references;
+        private long bytesSaved;
+
+        /**
+         * Counts one reference to a line.
+         * @param line The line as held, normally the shared instance
+         */
+        void add(String line) {
+            references++;
+            if (distinct.put(line, Boolean.TRUE) != null) {
+                bytesSaved += estimateSize(line);
+            }
+        }
+
+        /**
+         * Gets the number of distinct line instances among the references.
+         * @return The distinct line count
+         */
+        public int getDistinctLineCount() {
+            return distinct.size();
+        }
+
+        /**
+         * Gets the number of line references counted.
+         * @return The reference count
+         */
+        public long getReferenceCount() {
+            return references;
+        }
+
+        /**
+         * Gets the estimated heap size the repeated references would take if each held its own copy.
+         * @return The bytes saved, estimated
+         */
+        public long getBytesSaved() {
+            return bytesSaved;
+        }
+    }
+
+    /**
+     * A weak reference to a shared line. Equal to another reference or a probe of an equal line
+     * while the line is alive, and only to itself once it is collected, so it can still be removed.
+     */
+    private static final class LineRef extends WeakReference<String> {
+        private final int hash;
+
+        LineRef(String line, ReferenceQueue<String> queue) {
+            super(line, queue);
+            this.hash = line.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) {
+                return true;
+            }
+            String line = get();
+            if (line == null) {
+                return false;
+            }
+            if (o instanceof LineRef other) {
+                return line.equals(other.get());
+            }
+            return o instanceof Probe probe && line.equals(probe.line);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The key a line is looked up with, without creating a reference for lines already shared.
+     */
+    private static final class Probe {
+        private final String line;
+
+        Probe(String line) {
+            this.line = line;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LineRef ref && line.equals(ref.get());
+        }
+
+        @Override
+        public int hashCode() {
+            return line.hashCode();
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * The persisted sign holograms of one world: its table, region files and journal,
+ * all kept in a directory of their own under {@code worlds/}.
+ *
+ * A shard is opened when its world is added and closed when the world is removed, so only
+ * active worlds cost memory and startup time, and a checkpoint only rewrites worlds that changed.
+ * With the {@link StorageEngine#REGIONS regions} engine, only the regions holding changed chunks are
+ * rewritten, and only resident chunks are held in memory (see {@link WorldSigns}); with the
+ * {@link StorageEngine#MAPPED mapped} engine, the table lives in a memory-mapped file (see {@link MappedSignTable});
+ * with the {@link StorageEngine#SQL SQL} engine, in an embedded database (see {@link SqlSignTable}).
+ * A shard written by another engine is migrated when it loads.
+ * Loading, checkpointing and closing all run on the storage's save thread.
+ */
+class WorldShard {
+
+    /**
+     * File name (without extension) of the journal, and of the whole-world snapshots written by older versions.
+     */
+    static final String BASE_NAME = "signs";
+
+    /**
+     * Checkpoint early once the journal grows beyond this many bytes.
+     */
+    private static final long CHECKPOINT_JOURNAL_BYTES = 4L * 1024 * 1024;
+
+    private static final String REGIONS_FOLDER = "regions";
+
+    private final String worldId;
+    private final Path directory;
+    private final SignJournal journal;
+    private final StorageEngine engine;
+    private final SignChunkFilter filter;
+    private final Executor pager;
+    private final HytaleLogger logger;
+    private SignTable signs;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private volatile long firstChangeNanos;
+    private volatile long lastChangeNanos;
+
+    /**
+     * Creates a shard. Nothing is read until {@link #load()} is called.
+     * @param worldsFolder The folder holding all shard directories
+     * @param worldId The world ID
+     * @param engine How the shard keeps its signs
+     * @param filter The shared chunk filter
+     * @param pager Runs chunk page-ins off the world threads; the storage's save thread
+     * @param logger The logger instance
+     */
+    WorldShard(Path worldsFolder, String worldId, StorageEngine engine, SignChunkFilter filter, Executor pager, HytaleLogger logger) {
+        this.worldId = worldId;
+        this.directory = directoryFor(worldsFolder, worldId);
+        this.journal = new SignJournal(directory, BASE_NAME, logger);
+        this.engine = engine;
+        this.filter = filter;
+        this.pager = pager;
+        this.logger = logger;
+    }
+
+    /**
+     * Gets the directory of a world's shard. Characters outside {@code [A-Za-z0-9._-]} are
+     * percent-encoded so any world name maps to a distinct, valid directory name.
+     * @param worldsFolder The folder holding all shard directories
+     * @param worldId The world ID
+     * @return The shard directory
+     */
+    static Path directoryFor(Path worldsFolder, String worldId) {
+        StringBuilder name = new StringBuilder(worldId.length());
+        for (byte b : worldId.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '-'
+                    || c == '.' && name.length() > 0) {
+                name.append(c);
+            } else {
+                name.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                    .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+            }
+        }
+        return worldsFolder.resolve(name.toString());
+    }
+
+    /**
+     * Gets the world ID of this shard.
+     * @return The world ID
+     */
+    String getWorldId() {
+        return worldId;
+    }
+
+    /**
+     * Gets the sign table of this shard. Only valid once {@link #load()} has run.
+     * @return The sign table
+     */
+    SignTable signs() {
+        return signs;
+    }
+
+    /**
+     * Checks whether this shard exists on disk.
+     * @return true if the shard directory exists
+     */
+    boolean exists() {
+        return Files.isDirectory(directory);
+    }
+
+    /**
+     * Opens the table, migrates data written by older versions or by another engine into it, replays
+     * the journal and opens the journal for appending. With the regions engine no chunk stays resident;
+     * chunks are paged in as the game loads them.
+     * Errors are logged rather than thrown so a damaged shard never keeps its world from loading.
+     */
+    void load() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            logger.atSevere().log("Failed to create sign hologram folder for world " + worldId + ": " + e.getMessage());
+        }
+
+        signs = openTable();
+        List<Path> oldSnapshots = loadOldSnapshots();
+        oldSnapshots.addAll(loadOtherEngine());
+
+        int replayed = 0;
+        try {
+            // Every record in this journal belongs to this world
+            replayed = journal.replay(new SignJournal.RecordHandler() {
+                @Override
+                public void put(String recordWorldId, long location, SignRecord record) {
+                    signs.replayPut(location, record);
+                }
+
+                @Override
+                public void remove(String recordWorldId, long location) {
+                    signs.replayRemove(location);
+                }
+            });
+            if (replayed > 0) {
+                logger.atInfo().log("Replayed " + replayed + " journal records for world " + worldId);
+            }
+        } catch (IOException e) {
+            logger.atSevere().log("Failed to replay sign hologram journal for world " + worldId + ": " + e.getMessage());
+        }
+
+        try {
+            journal.open();
+        } catch (IOException e) {
+            logger.atSevere().log("Failed to open sign hologram journal for world " + worldId
+                + ", changes will only be saved on checkpoint: " + e.getMessage());
+        }
+
+        if (replayed > 0 || !oldSnapshots.isEmpty()) {
+            // Fold replayed records into the regions right away, which also pages the touched chunks out again
+            markDirty();
+            save();
+            if (!isDirty()) {
+                archiveOldSnapshots(oldSnapshots);
+            }
+        }
+    }
+
+    /**
+     * Opens the table of the configured engine. A mapped or SQL table that cannot be opened falls back to
+     * region files for this session, so the world still loads; its changes are migrated back next time.
+     */
+    private SignTable openTable() {
+        RegionFiles regions = new RegionFiles(directory.resolve(REGIONS_FOLDER));
+        try {
+            switch (engine) {
+                case MAPPED -> {
+                    MappedSignTable table = new MappedSignTable(worldId, directory, filter, logger);
+                    table.open();
+                    return table;
+                }
+                case SQL -> {
+                    SqlSignTable table = new SqlSignTable(worldId, directory, filter, journal, logger);
+                    table.open();
+                    return table;
+                }
+                default -> {
+                }
+            }
+        } catch (IOException e) {
+            logger.atSevere().log("Failed to open sign table of world " + worldId
+                + ", using region files until the next start: " + e.getMessage());
+        }
+        return new WorldSigns(worldId, filter, journal, regions, pager, logger);
+    }
+
+    /**
+     * Reads the signs the engines not in use left behind into the table, so a changed
+     * {@link StorageEngine} setting keeps every sign.
+     * @return The files and folders that were read
+     */
+    private List<Path> loadOtherEngine() {
+        List<Path> loaded = new ArrayList<>(4);
+        try {
+            if (!(signs instanceof WorldSigns)) {
+                RegionFiles regions = new RegionFiles(directory.resolve(REGIONS_FOLDER));
+                if (!regions.isEmpty()) {
+                    int entries = 0;
+                    for (long regionKey : regions.listRegions()) {
+                        LongObjectMap<ChunkBucket> region = regions.readRegion(regionKey);
+                        for (long chunkKey : region.keys()) {
+                            ChunkBucket bucket = region.get(chunkKey);
+                            for (int i = 0; i < bucket.size(); i++) {
+                                signs.replayPut(bucket.locationAt(i), bucket.valueAt(i));
+                                entries++;
+                            }
+                        }
+                    }
+                    logger.atInfo().log("Migrating " + entries + " signs of world " + worldId + " from region files");
+                    loaded.add(directory.resolve(REGIONS_FOLDER));
+                }
+            }
+            if (!(signs instanceof MappedSignTable) && MappedSignTable.exists(directory)) {
+                int entries = MappedSignTable.read(directory, worldId, (recordWorldId, location, record) -> signs.replayPut(location, record));
+                logger.atInfo().log("Migrating " + entries + " signs of world " + worldId + " from the mapped table");
+                loaded.addAll(MappedSignTable.listFiles(directory));
+            }
+            if (!(signs instanceof SqlSignTable) && SqlSignTable.exists(directory)) {
+                int entries = SqlSignTable.read(directory, worldId, (recordWorldId, location, record) -> signs.replayPut(location, record));
+                logger.atInfo().log("Migrating " + entries + " signs of world " + worldId + " from the SQL database");
+                loaded.addAll(SqlSignTable.listFiles(directory));
+            }
+        } catch (IOException e) {
+            logger.atSevere().log("Failed to migrate signs of world " + worldId + " between storage engines, will retry on next start: "
+                + e.getMessage());
+            loaded.clear();
+        }
+        return loaded;
+    }
+
+    /**
+     * Reads whole-world snapshots written before region files existed into the table, so the
+     * following checkpoint splits them into regions.
+     * @return The snapshot files that were read
+     */
+    private List<Path> loadOldSnapshots() {
+        List<Path> loaded = new ArrayList<>(1);
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            Path file = directory.resolve(format.getFileName(BASE_NAME));
+            if (!Files.exists(file)) {
+                continue;
+            }
+            try {
+                int entries = readSnapshot(file, format, (recordWorldId, location, record) -> signs.replayPut(location, record));
+                logger.atInfo().log("Migrating " + entries + " sign hologram mappings of world " + worldId + " from " + file.getFileName());
+                loaded.add(file);
+            } catch (IOException e) {
+                logger.atSevere().log("Failed to load sign holograms for world " + worldId + " from " + file.getFileName() + ": " + e.getMessage());
+            } catch (Exception e) {
+                logger.atSevere().log("Failed to parse sign holograms for world " + worldId + " from " + file.getFileName() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Moves migrated snapshots and files of the other engine aside so they are never read again.
+     * A file or folder is moved to a new name if an earlier migration already left one behind,
+     * so no earlier archive is ever overwritten.
+     */
+    private void archiveOldSnapshots(List<Path> oldSnapshots) {
+        for (Path file : oldSnapshots) {
+            Path target = file.resolveSibling(file.getFileName() + ".migrated");
+            if (Files.exists(target)) {
+                target = file.resolveSibling(file.getFileName() + ".migrated-" + System.currentTimeMillis());
+            }
+            try {
+                Files.move(file, target);
+            } catch (IOException e) {
+                logger.atWarning().log("Migrated snapshot but could not rename " + file.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot file in the given format.
+     * @param file The snapshot file
+     * @param format The file's format
+     * @param consumer Receives each sign entry
+     * @return The number of entries read
+     * @throws IOException If the file cannot be read or parsed
+     */
+    static int readSnapshot(Path file, SnapshotFormat format, BinarySnapshot.EntryConsumer consumer) throws IOException {
+        return format == SnapshotFormat.BINARY ? BinarySnapshot.read(file, consumer) : JsonSnapshot.read(file, consumer);
+    }
+
+    /**
+     * Marks this shard as needing a checkpoint, recording when it changed.
+     */
+    void markDirty() {
+        long now = System.nanoTime();
+        lastChangeNanos = now;
+        if (!dirty.get()) {
+            firstChangeNanos = now;
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * Checks whether a checkpoint should start: there are unsaved changes, and either nothing changed
+     * for the quiet period or the oldest unsaved change is older than the maximum delay.
+     * @param now The current {@link System#nanoTime()}
+     * @param quietNanos The quiet period
+     * @param maxDelayNanos The maximum delay after the first unsaved change
+     * @return true if {@link #save()} should be called
+     */
+    boolean isCheckpointDue(long now, long quietNanos, long maxDelayNanos) {
+        return dirty.get() && (now - lastChangeNanos >= quietNanos || now - firstChangeNanos >= maxDelayNanos);
+    }
+
+    /**
+     * Checks whether this shard has changes not yet in its snapshot.
+     * @return true if a checkpoint is needed
+     */
+    boolean isDirty() {
+        return dirty.get();
+    }
+
+    /**
+     * Writes buffered journal records to disk, checkpointing early once the journal gets large.
+     */
+    void commitJournal() {
+        try {
+            journal.commit();
+        } catch (IOException e) {
+            logger.atSevere().log("Failed to commit sign hologram journal for world " + worldId + ": " + e.getMessage());
+        }
+        if (journal.getCommittedBytes() > CHECKPOINT_JOURNAL_BYTES) {
+            save();
+        }
+    }
+
+    /**
+     * Checkpoints if dirty: seals the journal, flushes the table (writing the changed chunks to their
+     * region files, or forcing the mapped table to disk), then discards the sealed journal. The journal
+     * is sealed before any chunk is copied, so every sealed record is already reflected in the regions. Records for changes made while regions are
+     * being written land in the new segment and are replayed on top of them; since every record carries
+     * the full state of its location, that is safe whether or not a region already picked the change up.
+     * Synchronized so two checkpoints never interleave their rotate and discard steps.
+     */
+    synchronized void save() {
+        if (!dirty.compareAndSet(true, false)) {
+            return; // Already saved or no changes
+        }
+
+        try {
+            journal.rotate();
+            signs.flush();
+            journal.discardSealed();
+
+            logger.atInfo().log("Saved sign holograms for world " + worldId + " (" + signs.size() + " resident)");
+
+        } catch (IOException e) {
+            logger.atSevere().log("Failed to save sign holograms for world " + worldId + ": " + e.getMessage());
+            markDirty(); // Mark dirty again so we retry after the quiet period
+        } catch (Exception e) {
+            logger.atSevere().log("Failed to encode sign holograms for world " + worldId + ": " + e.getMessage());
+            e.printStackTrace();
+            markDirty(); // Mark dirty again so we retry after the quiet period
+        }
+    }
+
+    /**
+     * Checkpoints, closes the journal and withdraws this world from the shared chunk filter.
+     * The shard must not be used afterwards.
+     */
+    void close() {
+        save();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.atSevere().log("Failed to close sign hologram journal for world " + worldId + ": " + e.getMessage());
+        }
+        signs.detach();
+    }
+}
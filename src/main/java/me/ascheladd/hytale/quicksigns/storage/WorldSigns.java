@@ -0,0 +1,778 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * Sign hologram mappings for a single world, bucketed by chunk column.
+ * One instance exists per world name, so the world part of a lookup is resolved once;
+ * a chunk key then finds a small {@link ChunkBucket} holding the signs of that chunk.
+ * A lookup in a chunk without signs costs a single hash miss.
+ *
+ * Only resident chunks are held in memory: chunks the game has loaded ({@link #pageIn}), plus chunks
+ * paged in to apply a change, which stay until a checkpoint has written them to their
+ * {@link RegionFiles region}. A resident chunk is authoritative; for any other chunk the region
+ * file is. Region files are only read on the save thread, never while the lock is held: queries about
+ * a chunk that is not resident answer as if it held no signs, and changes to it are queued until a
+ * page-in on the save thread has made it resident.
+ *
+ * Every change is appended to the {@link SignJournal} while the lock is held, so journal
+ * records for a location are always in the same order as the changes themselves.
+ *
+ * All methods are synchronized (except {@link #pageIn}, {@link #forEachChunk} and {@link #flush}, which only
+ * lock around their reads of memory, never while reading the disk); each world is normally only touched by its
+ * own thread, so the lock is uncontended apart from saves and page-ins.
+ *
+ * Snapshots are copy-on-write: {@link #snapshot()} hands out the current chunk and residency maps in
+ * constant time and marks them shared, and the next change copies the map it touches (references only)
+ * before modifying it. Buckets are frozen the same way by bumping an epoch, and a bucket from an older
+ * epoch is copied the first time a change touches it. Readers can therefore iterate a snapshot on any
+ * thread while the world keeps changing, and a save costs the world thread at most one copy of each
+ * map and of each bucket it changes until the next snapshot.
+ */
+class WorldSigns implements SignTable {
+
+    private static final Boolean LOADED = Boolean.TRUE;
+    private static final Boolean PINNED = Boolean.FALSE;
+
+    private final String worldId;
+    private final SignChunkFilter filter;
+    private final SignJournal journal;
+    private final RegionFiles regions;
+    private final Executor pager;
+    private final HytaleLogger logger;
+
+    // Resident chunks with at least one sign; copied before a change while shared with a snapshot
+    private LongObjectMap<ChunkBucket> chunks;
+    private boolean chunksShared;
+
+    // Every resident chunk: LOADED if the game has it loaded, PINNED if only paged in for a change
+    private LongObjectMap<Boolean> resident;
+    private boolean residentShared;
+
+    // Buckets created in an older epoch may be part of a snapshot and are copied before a change
+    private long epoch;
+
+    // Resident chunks changed since their region was last written, with the sequence number of their latest change
+    private final LongObjectMap<Long> dirty;
+
+    // Changes to chunks that are not resident yet, in order; applied once the page-in scheduled for them completes
+    private final LongObjectMap<List<Runnable>> queued;
+
+    private long changeSeq;
+    private int signCount;
+
+    /**
+     * Creates an empty table for a world.
+     * @param worldId The world ID
+     * @param filter The shared chunk filter, told whenever a resident chunk gains its first or loses its last sign
+     * @param journal The journal of this world's shard
+     * @param regions The region files of this world's shard
+     * @param pager Runs page-ins for changes to chunks that are not resident; the storage's save thread
+     * @param logger The logger instance
+     */
+    WorldSigns(String worldId, SignChunkFilter filter, SignJournal journal, RegionFiles regions, Executor pager, HytaleLogger logger) {
+        this.worldId = worldId;
+        this.filter = filter;
+        this.journal = journal;
+        this.regions = regions;
+        this.pager = pager;
+        this.logger = logger;
+        this.chunks = new LongObjectMap<>();
+        this.resident = new LongObjectMap<>();
+        this.dirty = new LongObjectMap<>();
+        this.queued = new LongObjectMap<>();
+    }
+
+    /**
+     * Gets the world ID this table belongs to.
+     * @return The world ID
+     */
+    @Override
+    public String getWorldId() {
+        return worldId;
+    }
+
+    /**
+     * Makes a chunk resident because the game loaded it. Its region is read without holding the lock,
+     * so lookups on the world thread never wait for the disk.
+     * @param chunkKey The chunk key
+     */
+    @Override
+    public void pageIn(long chunkKey) {
+        pageIn(chunkKey, LOADED);
+    }
+
+    /**
+     * Drops a chunk from memory because the game unloaded it. A chunk with unsaved changes
+     * stays until the next checkpoint has written it.
+     * @param chunkKey The chunk key
+     */
+    @Override
+    public synchronized void pageOut(long chunkKey) {
+        if (!resident.containsKey(chunkKey)) {
+            return;
+        }
+        if (dirty.containsKey(chunkKey)) {
+            mutableResident().put(chunkKey, PINNED);
+        } else {
+            evict(chunkKey);
+        }
+    }
+
+    /**
+     * Appends a hologram UUID to the sign at a location.
+     * @param location The packed location
+     * @param entityUuid The hologram entity UUID
+     */
+    @Override
+    public synchronized void add(long location, UUID entityUuid) {
+        if (queueUntilResident(location, () -> add(location, entityUuid))) {
+            return;
+        }
+        ChunkBucket bucket = bucketFor(location);
+        SignRecord existing = bucket.get(location);
+        SignRecord record = existing != null ? existing.withHologram(entityUuid) : SignRecord.ofHolograms(List.of(entityUuid));
+        if (bucket.put(location, record) == null) {
+            signCount++;
+        }
+        journal.appendPut(worldId, location, record);
+    }
+
+    /**
+     * Replaces the sign at a location.
+     * @param location The packed location
+     * @param record The complete record for the location
+     */
+    @Override
+    public synchronized void set(long location, SignRecord record) {
+        if (queueUntilResident(location, () -> set(location, record))) {
+            return;
+        }
+        put(location, record);
+        journal.appendPut(worldId, location, record);
+    }
+
+    /**
+     * Gets the sign at a location.
+     * @param location The packed location
+     * @return The record, or null if no sign is tracked there
+     */
+    @Override
+    public synchronized SignRecord get(long location) {
+        ChunkBucket bucket = bucketAt(SignLocation.chunkKeyOf(location));
+        return bucket != null ? bucket.get(location) : null;
+    }
+
+    /**
+     * Removes the sign at a location.
+     * @param location The packed location
+     * @return The removed record, or null if no sign was tracked there or its chunk is not resident yet
+     */
+    @Override
+    public synchronized SignRecord remove(long location) {
+        if (queueUntilResident(location, () -> remove(location))) {
+            return null;
+        }
+        SignRecord removed = removeEntry(location);
+        if (removed != null) {
+            journal.appendRemove(worldId, location);
+        }
+        return removed;
+    }
+
+    /**
+     * Applies a replayed journal put without journaling it again.
+     * @param location The packed location
+     * @param record The complete record for the location
+     */
+    @Override
+    public synchronized void replayPut(long location, SignRecord record) {
+        put(location, record);
+    }
+
+    /**
+     * Applies a replayed journal remove without journaling it again.
+     * @param location The packed location
+     */
+    @Override
+    public synchronized void replayRemove(long location) {
+        removeEntry(location);
+    }
+
+    /**
+     * Checks whether a sign is tracked at a location.
+     * @param location The packed location
+     * @return true if a sign is tracked there
+     */
+    @Override
+    public synchronized boolean contains(long location) {
+        ChunkBucket bucket = bucketAt(SignLocation.chunkKeyOf(location));
+        return bucket != null && bucket.contains(location);
+    }
+
+    /**
+     * Checks which horizontal neighbours of a block hold a tracked sign.
+     * Neighbours in the same chunk are checked against the bucket already fetched for the block,
+     * so the common case is a single chunk lookup.
+     * @param x The block x coordinate
+     * @param y The block y coordinate
+     * @param z The block z coordinate
+     * @return A bit mask where bit {@code i} is set if {@link SignLocation#ADJACENT_OFFSETS}[i] holds a sign
+     */
+    @Override
+    public synchronized int adjacentSignMask(int x, int y, int z) {
+        long homeKey = SignLocation.chunkKeyOf(x, z);
+        ChunkBucket home = bucketAt(homeKey);
+        int mask = 0;
+        int[][] offsets = SignLocation.ADJACENT_OFFSETS;
+        for (int i = 0; i < offsets.length; i++) {
+            int nx = x + offsets[i][0];
+            int nz = z + offsets[i][1];
+            long chunkKey = SignLocation.chunkKeyOf(nx, nz);
+            ChunkBucket bucket = chunkKey == homeKey ? home : bucketAt(chunkKey);
+            if (bucket != null && bucket.contains(SignLocation.pack(nx, y, nz))) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Gets the locations of all signs in a chunk column.
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return The packed locations, in ascending order
+     */
+    @Override
+    public synchronized long[] signsInChunk(int chunkX, int chunkZ) {
+        ChunkBucket bucket = bucketAt(SignLocation.chunkKey(chunkX, chunkZ));
+        if (bucket == null) {
+            return new long[0];
+        }
+        long[] out = new long[bucket.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = bucket.locationAt(i);
+        }
+        return out;
+    }
+
+    /**
+     * Gets the locations of all signs inside a box (bounds inclusive).
+     * Resident chunks are walked by overlapped chunk column, or every bucket if that is cheaper;
+     * the rest of the box is not read.
+     * @param minX The minimum x coordinate
+     * @param minY The minimum y coordinate
+     * @param minZ The minimum z coordinate
+     * @param maxX The maximum x coordinate
+     * @param maxY The maximum y coordinate
+     * @param maxZ The maximum z coordinate
+     * @return The packed locations
+     */
+    @Override
+    public synchronized long[] signsInBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        int minChunkX = minX >> SignLocation.CHUNK_SHIFT;
+        int maxChunkX = maxX >> SignLocation.CHUNK_SHIFT;
+        int minChunkZ = minZ >> SignLocation.CHUNK_SHIFT;
+        int maxChunkZ = maxZ >> SignLocation.CHUNK_SHIFT;
+        long columns = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+
+        BoxCollector collector = new BoxCollector(minX, minY, minZ, maxX, maxY, maxZ);
+        if (columns > chunks.size()) {
+            chunks.forEach((chunkKey, bucket) -> collector.collect(bucket));
+        } else {
+            for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+                for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                    ChunkBucket bucket = chunks.get(SignLocation.chunkKey(cx, cz));
+                    if (bucket != null) {
+                        collector.collect(bucket);
+                    }
+                }
+            }
+        }
+
+        return collector.toArray();
+    }
+
+    /**
+     * Gets the locations of all signs in chunks the game has loaded. Chunks only paged in to apply
+     * a change are left out, since the game has no entities there.
+     * @return The packed locations
+     */
+    @Override
+    public synchronized long[] loadedLocations() {
+        long[] out = new long[signCount];
+        int[] count = {0};
+        chunks.forEach((chunkKey, bucket) -> {
+            if (resident.get(chunkKey) == LOADED) {
+                for (int i = 0; i < bucket.size(); i++) {
+                    out[count[0]++] = bucket.locationAt(i);
+                }
+            }
+        });
+        return Arrays.copyOf(out, count[0]);
+    }
+
+    /**
+     * Gets the number of tracked signs resident in memory.
+     * @return The resident sign count
+     */
+    @Override
+    public synchronized int size() {
+        return signCount;
+    }
+
+    /**
+     * Gets the number of resident chunk columns, with or without signs.
+     * @return The resident chunk count
+     */
+    synchronized int residentChunkCount() {
+        return resident.size();
+    }
+
+    /**
+     * Takes a point-in-time view of the resident mappings in constant time. The view stays unchanged
+     * and may be read off-lock on any thread while this table keeps changing.
+     * @return The snapshot
+     */
+    synchronized Snapshot snapshot() {
+        chunksShared = true;
+        residentShared = true;
+        epoch++;
+        return new Snapshot(chunks, resident, signCount);
+    }
+
+    /**
+     * Visits every resident sign, as of one {@link #snapshot()}.
+     * @param consumer Receives each location and record
+     */
+    @Override
+    public void forEachResident(LongObjectMap.EntryConsumer<SignRecord> consumer) {
+        snapshot().forEach(consumer);
+    }
+
+    /**
+     * Writes every changed chunk to its region file and then drops chunks the game no longer has loaded.
+     * The changed chunks are taken from one {@link #snapshot()}, so the lock is only held to take it;
+     * each region is then read, patched with its changed chunks and replaced atomically. A chunk only counts
+     * as saved once its region is on disk and it has not changed again since the snapshot, so it can never
+     * be evicted before its latest state is written.
+     * @throws IOException If any region could not be written; its chunks are retried next time
+     */
+    @Override
+    public void flush() throws IOException {
+        long[] pending;
+        synchronized (this) {
+            pending = queued.keys();
+        }
+        // Queued changes are journaled as they are applied, so apply them before the journal they land in is discarded
+        for (long chunkKey : pending) {
+            pageIn(chunkKey, PINNED);
+        }
+
+        LongObjectMap<ChunkGroup> byRegion = new LongObjectMap<>();
+        LongObjectMap<Long> snapshotSeq;
+        Snapshot snapshot;
+        synchronized (this) {
+            dirty.forEach((chunkKey, seq) -> {
+                long regionKey = RegionFiles.regionKeyOf(chunkKey);
+                ChunkGroup group = byRegion.get(regionKey);
+                if (group == null) {
+                    group = new ChunkGroup();
+                    byRegion.put(regionKey, group);
+                }
+                group.add(chunkKey);
+            });
+            snapshotSeq = dirty.copy();
+            snapshot = snapshot();
+        }
+
+        IOException failure = null;
+        for (long regionKey : byRegion.keys()) {
+            long[] changed = byRegion.get(regionKey).toArray();
+            try {
+                LongObjectMap<ChunkBucket> region = regions.readRegion(regionKey);
+                for (long chunkKey : changed) {
+                    ChunkBucket bucket = snapshot.bucket(chunkKey);
+                    if (bucket != null) {
+                        region.put(chunkKey, bucket);
+                    } else {
+                        region.remove(chunkKey);
+                    }
+                }
+                regions.writeRegion(regionKey, region);
+            } catch (IOException e) {
+                failure = e;
+                continue;
+            }
+            synchronized (this) {
+                for (long chunkKey : changed) {
+                    Long seq = dirty.get(chunkKey);
+                    if (seq != null && seq.equals(snapshotSeq.get(chunkKey))) {
+                        dirty.remove(chunkKey);
+                    }
+                }
+            }
+        }
+
+        synchronized (this) {
+            for (long chunkKey : resident.keys()) {
+                if (resident.get(chunkKey) == PINNED && !dirty.containsKey(chunkKey)) {
+                    evict(chunkKey);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Withdraws this world's chunks from the shared filter when the world is unloaded.
+     * The table must not be used afterwards.
+     */
+    @Override
+    public synchronized void detach() {
+        chunks.forEach((chunkKey, bucket) -> filter.remove(chunkKey));
+        chunks = new LongObjectMap<>();
+        chunksShared = false;
+        resident = new LongObjectMap<>();
+        residentShared = false;
+        dirty.clear();
+        queued.clear();
+        signCount = 0;
+    }
+
+    /**
+     * Visits every chunk with tracked signs, on disk or resident, one chunk at a time. Resident chunks
+     * come from one {@link #snapshot()}, so the lock is only held to take it and writers can stream a large
+     * world without blocking the world thread or copying the table. Resident chunks are seen as of the
+     * snapshot; chunks on disk that are paged in and changed while the walk is in progress may or may not be.
+     * @param visitor Receives each chunk; it must not modify the bucket
+     * @throws IOException If a region cannot be read or the visitor fails
+     */
+    @Override
+    public void forEachChunk(ChunkVisitor visitor) throws IOException {
+        Snapshot snapshot = snapshot();
+        long[] residentKeys = snapshot.chunks.keys();
+        for (long chunkKey : residentKeys) {
+            visitor.visit(snapshot.chunks.get(chunkKey));
+        }
+        for (long regionKey : regions.listRegions()) {
+            LongObjectMap<ChunkBucket> region = regions.readRegion(regionKey);
+            for (long chunkKey : region.keys()) {
+                if (!snapshot.resident.containsKey(chunkKey)) {
+                    visitor.visit(region.get(chunkKey));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the chunk map for a change, copying it first if a snapshot shares it.
+     */
+    private LongObjectMap<ChunkBucket> mutableChunks() {
+        if (chunksShared) {
+            chunks = chunks.copy();
+            chunksShared = false;
+        }
+        return chunks;
+    }
+
+    /**
+     * Gets the residency map for a change, copying it first if a snapshot shares it.
+     */
+    private LongObjectMap<Boolean> mutableResident() {
+        if (residentShared) {
+            resident = resident.copy();
+            residentShared = false;
+        }
+        return resident;
+    }
+
+    /**
+     * Gets a resident chunk's bucket for a change, replacing it with a copy first if a snapshot may hold it.
+     */
+    private ChunkBucket mutableBucket(long chunkKey) {
+        ChunkBucket bucket = chunks.get(chunkKey);
+        if (bucket != null && bucket.epoch != epoch) {
+            bucket = bucket.copy();
+            bucket.epoch = epoch;
+            mutableChunks().put(chunkKey, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * Stores a record at a location, replacing any existing entry.
+     */
+    private void put(long location, SignRecord record) {
+        if (bucketFor(location).put(location, record) == null) {
+            signCount++;
+        }
+    }
+
+    /**
+     * Removes the entry at a location, dropping its bucket once empty.
+     */
+    private SignRecord removeEntry(long location) {
+        long chunkKey = SignLocation.chunkKeyOf(location);
+        ensureResident(chunkKey);
+        ChunkBucket bucket = chunks.get(chunkKey);
+        if (bucket == null || !bucket.contains(location)) {
+            return null;
+        }
+        SignRecord removed = mutableBucket(chunkKey).remove(location);
+        signCount--;
+        dirty.put(chunkKey, ++changeSeq);
+        if (chunks.get(chunkKey).size() == 0) {
+            mutableChunks().remove(chunkKey);
+            filter.remove(chunkKey);
+        }
+        return removed;
+    }
+
+    /**
+     * Gets or creates the bucket for the chunk containing a location, paging the chunk in first.
+     * The chunk is marked changed, since every caller modifies the bucket.
+     */
+    private ChunkBucket bucketFor(long location) {
+        long chunkKey = SignLocation.chunkKeyOf(location);
+        ensureResident(chunkKey);
+        dirty.put(chunkKey, ++changeSeq);
+        ChunkBucket bucket = mutableBucket(chunkKey);
+        if (bucket == null) {
+            bucket = new ChunkBucket();
+            bucket.epoch = epoch;
+            mutableChunks().put(chunkKey, bucket);
+            filter.add(chunkKey);
+        }
+        return bucket;
+    }
+
+    /**
+     * Gets a chunk's bucket for a query, or null if the chunk has no signs or is not resident.
+     */
+    private ChunkBucket bucketAt(long chunkKey) {
+        return chunks.get(chunkKey);
+    }
+
+    /**
+     * Makes a chunk resident, reading its region outside the lock, then applies any changes queued for it.
+     * A chunk already resident is only marked loaded if {@code state} says so; a chunk the game has loaded
+     * is never demoted to pinned. Only called on the save thread, which is also the only thread writing
+     * regions, so the region cannot change between the read and the install.
+     */
+    private void pageIn(long chunkKey, Boolean state) {
+        synchronized (this) {
+            if (resident.containsKey(chunkKey)) {
+                if (state == LOADED) {
+                    mutableResident().put(chunkKey, LOADED);
+                }
+                return;
+            }
+        }
+        ChunkBucket bucket = readFromDisk(chunkKey);
+        synchronized (this) {
+            if (!resident.containsKey(chunkKey)) {
+                install(chunkKey, bucket);
+            }
+            if (state == LOADED) {
+                mutableResident().put(chunkKey, LOADED);
+            }
+        }
+    }
+
+    /**
+     * Pages a chunk in from its region file if it is not resident yet; it stays pinned until flushed.
+     * Reads the disk while holding the lock, so only used for replays and migrations on the save thread
+     * while the world is loading, when no other thread can reach this table yet.
+     */
+    private void ensureResident(long chunkKey) {
+        if (!resident.containsKey(chunkKey)) {
+            install(chunkKey, readFromDisk(chunkKey));
+        }
+    }
+
+    /**
+     * Makes a chunk resident and pinned with the signs read from its region, then applies the changes queued for it in order.
+     */
+    private void install(long chunkKey, ChunkBucket bucket) {
+        if (bucket != null && bucket.size() > 0) {
+            bucket.epoch = epoch;
+            mutableChunks().put(chunkKey, bucket);
+            filter.add(chunkKey);
+            signCount += bucket.size();
+        }
+        mutableResident().put(chunkKey, PINNED);
+        List<Runnable> changes = queued.remove(chunkKey);
+        if (changes != null) {
+            changes.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Queues a change if the chunk it touches is not resident, scheduling the chunk's page-in on the save thread
+     * for the first change queued. The change then runs, and is journaled, when the page-in completes.
+     * @return true if the change was queued, false if the chunk is resident and the caller should apply it now
+     */
+    private boolean queueUntilResident(long location, Runnable change) {
+        long chunkKey = SignLocation.chunkKeyOf(location);
+        if (resident.containsKey(chunkKey)) {
+            return false;
+        }
+        List<Runnable> changes = queued.get(chunkKey);
+        if (changes != null) {
+            changes.add(change);
+            return true;
+        }
+        changes = new ArrayList<>(2);
+        changes.add(change);
+        queued.put(chunkKey, changes);
+        try {
+            pager.execute(() -> pageIn(chunkKey, PINNED));
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the final checkpoint pages the chunk in before it flushes
+        }
+        return true;
+    }
+
+    /**
+     * Drops a resident chunk from memory. Only valid for chunks without unsaved changes.
+     */
+    private void evict(long chunkKey) {
+        ChunkBucket bucket = chunks.containsKey(chunkKey) ? mutableChunks().remove(chunkKey) : null;
+        if (bucket != null) {
+            filter.remove(chunkKey);
+            signCount -= bucket.size();
+        }
+        mutableResident().remove(chunkKey);
+    }
+
+    private ChunkBucket readFromDisk(long chunkKey) {
+        try {
+            return regions.readChunk(chunkKey);
+        } catch (IOException e) {
+            logger.atSevere().log("Failed to read sign region of world " + worldId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * A point-in-time view of a table's resident mappings, taken by {@link #snapshot()}.
+     * Nothing in it changes after it was taken, so it may be read on any thread without locking.
+     */
+    static final class Snapshot {
+        private final LongObjectMap<ChunkBucket> chunks;
+        private final LongObjectMap<Boolean> resident;
+        private final int size;
+
+        private Snapshot(LongObjectMap<ChunkBucket> chunks, LongObjectMap<Boolean> resident, int size) {
+            this.chunks = chunks;
+            this.resident = resident;
+            this.size = size;
+        }
+
+        /**
+         * Gets the number of resident signs at the time of the snapshot.
+         * @return The sign count
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Gets the sign at a location, if its chunk was resident.
+         * @param location The packed location
+         * @return The record, or null if no sign was tracked there or its chunk was not resident
+         */
+        SignRecord get(long location) {
+            ChunkBucket bucket = chunks.get(SignLocation.chunkKeyOf(location));
+            return bucket != null ? bucket.get(location) : null;
+        }
+
+        /**
+         * Gets a resident chunk's signs.
+         * @param chunkKey The chunk key
+         * @return The bucket, which must not be modified, or null if the chunk had no resident signs
+         */
+        ChunkBucket bucket(long chunkKey) {
+            return chunks.get(chunkKey);
+        }
+
+        /**
+         * Visits every resident sign.
+         * @param consumer Receives each location and record
+         */
+        void forEach(LongObjectMap.EntryConsumer<SignRecord> consumer) {
+            chunks.forEach((chunkKey, bucket) -> {
+                for (int i = 0; i < bucket.size(); i++) {
+                    consumer.accept(bucket.locationAt(i), bucket.valueAt(i));
+                }
+            });
+        }
+    }
+
+    /**
+     * The changed chunks of one region, collected by {@link #flush}.
+     */
+    private static final class ChunkGroup {
+        private long[] keys = new long[4];
+        private int size;
+
+        void add(long chunkKey) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size << 1);
+            }
+            keys[size++] = chunkKey;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(keys, size);
+        }
+    }
+
+    /**
+     * Accumulates bucket entries that fall inside a box.
+     */
+    private static final class BoxCollector {
+        private final int minX, minY, minZ, maxX, maxY, maxZ;
+        private long[] out = new long[8];
+        private int size;
+
+        BoxCollector(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+        }
+
+        void collect(ChunkBucket bucket) {
+            for (int i = 0; i < bucket.size(); i++) {
+                long location = bucket.locationAt(i);
+                int x = SignLocation.unpackX(location);
+                int y = SignLocation.unpackY(location);
+                int z = SignLocation.unpackZ(location);
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+                    if (size == out.length) {
+                        out = Arrays.copyOf(out, size << 1);
+                    }
+                    out[size++] = location;
+                }
+            }
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(out, size);
+        }
+    }
+}
@@ -2,7 +2,6 @@ package me.ascheladd.hytale.quicksigns.ui;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
 
 import javax.annotation.Nonnull;
@@ -17,12 +16,10 @@ import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import me.ascheladd.hytale.quicksigns.QuickSigns;
-import me.ascheladd.hytale.quicksigns.storage.SignHologramStorage;
-import me.ascheladd.hytale.quicksigns.util.HologramUtil;
+import me.ascheladd.hytale.quicksigns.hologram.HologramOperations;
 
 /**
  * UI page for entering sign text when placing a sign.
@@ -30,11 +27,12 @@ import me.ascheladd.hytale.quicksigns.util.HologramUtil;
  */
 public class SignTextInputPage extends CustomUIPage {
     
+    private final UUID playerId;
     private final String worldId;
     private final int signX;
     private final double signY;
     private final int signZ;
-    private final SignHologramStorage signHologramStorage;
+    private final HologramOperations hologramOperations;
     
     /**
      * Create sign text input page.
@@ -46,7 +44,7 @@ public class SignTextInputPage extends CustomUIPage {
      * @param signX Sign X coordinate
      * @param signY Sign Y coordinate
      * @param signZ Sign Z coordinate
-     * @param signHologramStorage Sign hologram storage for persistence
+     * @param hologramOperations Hologram operation queues that spawn and persist the text
      */
     public SignTextInputPage(
         @Nonnull PlayerRef playerRef,
@@ -56,14 +54,15 @@ public class SignTextInputPage extends CustomUIPage {
         int signX,
         double signY,
         int signZ,
-        SignHologramStorage signHologramStorage
+        HologramOperations hologramOperations
     ) {
         super(playerRef, CustomPageLifetime.CanDismiss);
+        this.playerId = playerId;
         this.worldId = worldId;
         this.signX = signX;
         this.signY = signY;
         this.signZ = signZ;
-        this.signHologramStorage = signHologramStorage;
+        this.hologramOperations = hologramOperations;
         QuickSigns.debug("SignTextInputPage created for sign at " + worldId + ":" + signX + ":" + signY + ":" + signZ);
     }
     
@@ -150,57 +149,9 @@ public class SignTextInputPage extends CustomUIPage {
             if (transformComponent == null) return;
             var playerPos = transformComponent.getPosition();
             
+            // Spawned on the world thread within its hologram budget, taking turns with other players' edits
             var world = store.getExternalData().getWorld();
-            
-            final List<String> finalLines = displayLines;
-            final double playerX = playerPos.getX();
-            final double playerZ = playerPos.getZ();
-            
-            world.execute(() -> {
-                // Delete existing holograms at this sign location if any
-                deleteExistingHolograms(world, worldId, signX, (int) signY, signZ);
-                
-                // Create multi-line hologram with stacked entities
-                final double lineSpacing = 0.25;
-                
-                for (int i = 0; i < finalLines.size(); i++) {
-                    String lineText = finalLines.get(i);
-                    
-                    // Calculate Y offset: center the text stack on the sign
-                    // More lines means lower starting position so all lines fit on sign
-                    // Formula: y + ((size - 1 - index) - (size - 1) / 2) * spacing
-                    double yOffset = ((finalLines.size() - 1 - i) - (finalLines.size() - 1) / 2.0) * lineSpacing;
-                    
-                    HologramUtil.HologramResult result = HologramUtil.createHologram(
-                        world,
-                        signX,
-                        signY + yOffset,
-                        signZ,
-                        playerX,
-                        playerZ,
-                        lineText
-                    );
-                    
-                    // Persist the sign-hologram mapping using UUID for deletion when sign is broken
-                    if (result != null) {
-                        if (signHologramStorage != null && result.entityUuid != null) {
-                            signHologramStorage.registerSignHologram(worldId, signX, (int) signY, signZ, result.entityUuid);
-                            QuickSigns.debug("Persisted sign hologram mapping: " + worldId + ":" + signX + ":" + signY + ":" + signZ + " -> UUID:" + result.entityUuid);
-                        } else {
-                            if (signHologramStorage == null) {
-                                QuickSigns.logger().atWarning().log("SignHologramStorage is null, hologram mapping will not persist!");
-                            }
-                            if (result.entityUuid == null) {
-                                QuickSigns.logger().atWarning().log("Entity UUID is null, hologram mapping will not persist!");
-                            }
-                        }
-                        
-                        QuickSigns.debug("Created sign hologram line " + (i+1) + ": " + lineText);
-                    } else {
-                        QuickSigns.logger().atSevere().log("Failed to create hologram for line " + (i+1));
-                    }
-                }
-            });
+            hologramOperations.forWorld(world).spawn(signX, (int) signY, signZ, displayLines, playerPos.getX(), playerPos.getZ(), playerId);
             
             close();
         } else if ("cancel".equals(action)) {
@@ -261,46 +212,6 @@ public class SignTextInputPage extends CustomUIPage {
         return result.toString();
     }
     
-    /**
-     * Deletes existing holograms at the sign location before creating new ones.
-     */
-    private void deleteExistingHolograms(
-        World world,
-        String worldId, 
-        int x, 
-        int y, 
-        int z
-    ) {
-        List<UUID> existingUuids = signHologramStorage.removeSignHolograms(worldId, x, y, z);
-        
-        if (existingUuids == null || existingUuids.isEmpty()) {
-            QuickSigns.debug("No existing holograms to delete at " + worldId + ":" + x + ":" + y + ":" + z);
-            return;
-        }
-        
-        QuickSigns.debug("Deleting " + existingUuids.size() + " existing sign holograms before creating new ones");
-        
-        var entityStore = world.getEntityStore();
-        
-        for (UUID uuid : existingUuids) {
-            try {
-                Ref<EntityStore> hologramRef = entityStore.getRefFromUUID(Objects.requireNonNull(uuid));
-                
-                if (hologramRef == null || !hologramRef.isValid()) {
-                    QuickSigns.debug("Hologram UUID " + uuid + " not found or invalid, skipping");
-                    continue;
-                }
-                
-                // Remove entity
-                com.hypixel.hytale.component.Holder<EntityStore> holder = EntityStore.REGISTRY.newHolder();
-                entityStore.getStore().removeEntity(hologramRef, holder, com.hypixel.hytale.component.RemoveReason.REMOVE);
-                QuickSigns.debug("Deleted existing hologram UUID: " + uuid);
-            } catch (Exception e) {
-                QuickSigns.logger().atSevere().log("Failed to delete hologram UUID " + uuid + ": " + e.getMessage());
-            }
-        }
-    }
-    
     @Override
     public void onDismiss(@Nonnull Ref<EntityStore> playerEntity, @Nonnull Store<EntityStore> store) {
         // Cleanup when page closes
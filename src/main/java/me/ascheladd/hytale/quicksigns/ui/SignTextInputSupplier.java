@@ -16,7 +16,7 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.core.util.TargetUtil;
 
 import me.ascheladd.hytale.quicksigns.QuickSigns;
-import me.ascheladd.hytale.quicksigns.storage.SignHologramStorage;
+import me.ascheladd.hytale.quicksigns.hologram.HologramOperations;
 import me.ascheladd.hytale.quicksigns.util.SignUtil;
 
 /**
@@ -63,7 +63,7 @@ public class SignTextInputSupplier implements OpenCustomUIInteraction.CustomPage
         
         // Check if this sign has holograms (for editing existing text)
         // If no holograms exist, we'll still show the UI to create new ones
-        SignHologramStorage storage = QuickSigns.getInstance().getSignHologramStorage();
+        HologramOperations hologramOperations = QuickSigns.getInstance().getHologramOperations();
 
         // Get player info
         if (playerRef == null) {
@@ -82,7 +82,7 @@ public class SignTextInputSupplier implements OpenCustomUIInteraction.CustomPage
             blockPos.x,
             blockPos.y,
             blockPos.z,
-            storage
+            hologramOperations
         );
     }
 }
@@ -1,5 +1,6 @@
 package me.ascheladd.hytale.quicksigns.util;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -7,8 +8,8 @@ import com.hypixel.hytale.component.AddReason;
 import com.hypixel.hytale.component.Holder;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.math.vector.Transform;
+import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.server.core.entity.UUIDComponent;
-import com.hypixel.hytale.server.core.entity.entities.ProjectileComponent;
 import com.hypixel.hytale.server.core.entity.nameplate.Nameplate;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
 import com.hypixel.hytale.server.core.modules.entity.tracker.NetworkId;
@@ -16,12 +17,20 @@ import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import me.ascheladd.hytale.quicksigns.QuickSigns;
+import me.ascheladd.hytale.quicksigns.hologram.HologramComponent;
+import me.ascheladd.hytale.quicksigns.storage.SignLocation;
+import me.ascheladd.hytale.quicksigns.storage.TextInterner;
 
 /**
  * Utility class for creating holograms (floating text).
  */
 public class HologramUtil {
     
+    /**
+     * Separator between the lines of a multi-line nameplate.
+     */
+    public static final String LINE_SEPARATOR = "\n";
+    
     /**
      * Private constructor to prevent instantiation.
      */
@@ -29,6 +38,50 @@ public class HologramUtil {
         throw new UnsupportedOperationException("Utility class");
     }
     
+    /**
+     * Gets the side of a sign a player is on, by the dominant axis of the player's offset from the sign.
+     * 
+     * @param signX Sign X coordinate
+     * @param signZ Sign Z coordinate
+     * @param playerX Player X coordinate
+     * @param playerZ Player Z coordinate
+     * @return An index into {@link SignLocation#ADJACENT_OFFSETS}
+     */
+    public static byte facingToward(double signX, double signZ, double playerX, double playerZ) {
+        // Calculate player's direction from sign
+        double deltaX = playerX - signX;
+        double deltaZ = playerZ - signZ;
+        
+        // Determine cardinal direction (biggest difference)
+        if (Math.abs(deltaX) > Math.abs(deltaZ)) {
+            // East/West direction is dominant
+            return (byte) (deltaX > 0 ? 0 : 1);
+        }
+        // North/South direction is dominant
+        return (byte) (deltaZ > 0 ? 2 : 3);
+    }
+    
+    /**
+     * Creates a single hologram showing all lines of a sign as one multi-line nameplate.
+     * One entity per sign instead of one per line keeps entity tracking and network traffic for signs down.
+     * The nameplate holds the lines joined into one string of its own, which is not interned: signs
+     * only share it line by line in their records, so each such nameplate costs a copy of its text.
+     * This method should be called from within world.execute().
+     * 
+     * @param world The world to create the hologram in
+     * @param signX Sign X coordinate
+     * @param signY Sign Y coordinate, the vertical center of the text
+     * @param signZ Sign Z coordinate
+     * @param facing The side of the sign the text is shown on, see {@link #facingToward}
+     * @param lines The text lines, top to bottom
+     * @param entityUuid The UUID to give the entity
+     * @return The hologram entity reference, or null if creation failed
+     */
+    public static HologramResult createMultiLineHologram(World world, double signX, double signY, double signZ, byte facing, List<String> lines, UUID entityUuid) {
+        Vector3d position = positionInFront(signX, signY, signZ, facing);
+        return spawnHologram(world, position.getX(), position.getY(), position.getZ(), String.join(LINE_SEPARATOR, lines), entityUuid);
+    }
+    
     /**
      * Creates a sign text hologram positioned in front of the sign.
      * Calculates offset based on the player's cardinal direction from the sign.
@@ -44,26 +97,95 @@ public class HologramUtil {
      * @return The hologram entity reference, or null if creation failed
      */
     public static HologramResult createHologram(World world, double signX, double signY, double signZ, double playerX, double playerZ, String text) {
-        // Calculate player's direction from sign
-        double deltaX = playerX - signX;
-        double deltaZ = playerZ - signZ;
-        
-        // Determine cardinal direction (biggest difference)
-        double absX = Math.abs(deltaX);
-        double absZ = Math.abs(deltaZ);
-        
-        double offsetX = 0;
-        double offsetZ = 0;
-        
-        if (absX > absZ) {
-            // East/West direction is dominant
-            offsetX = deltaX > 0 ? 0.2 : -0.2;
-        } else {
-            // North/South direction is dominant
-            offsetZ = deltaZ > 0 ? 0.2 : -0.2;
+        byte facing = facingToward(signX, signZ, playerX, playerZ);
+        return createHologram(world, signX, signY, signZ, facing, text, UUID.randomUUID());
+    }
+    
+    /**
+     * Creates a sign text hologram positioned just off the given side of the sign.
+     * This method should be called from within world.execute().
+     * 
+     * @param world The world to create the hologram in
+     * @param signX Sign X coordinate
+     * @param signY Sign Y coordinate
+     * @param signZ Sign Z coordinate
+     * @param facing The side of the sign the text is shown on, see {@link #facingToward}
+     * @param text The text to display
+     * @param entityUuid The UUID to give the entity
+     * @return The hologram entity reference, or null if creation failed
+     */
+    public static HologramResult createHologram(World world, double signX, double signY, double signZ, byte facing, String text, UUID entityUuid) {
+        Vector3d position = positionInFront(signX, signY, signZ, facing);
+        return createHologram(world, position.getX(), position.getY(), position.getZ(), text, entityUuid);
+    }
+    
+    /**
+     * Replaces the text of an existing hologram with a single line, shared through {@link TextInterner}.
+     * The nameplate change is sent to clients as a component update, without despawning the entity.
+     * This method should be called from within world.execute().
+     * 
+     * @param world The world the hologram is in
+     * @param hologramRef The hologram entity reference
+     * @param text The text to display
+     * @return true if the hologram had a nameplate to update
+     */
+    public static boolean setText(World world, Ref<EntityStore> hologramRef, String text) {
+        return setNameplate(world, hologramRef, TextInterner.intern(Objects.requireNonNull(text)));
+    }
+    
+    /**
+     * Replaces the text of a multi-line hologram, see {@link #createMultiLineHologram}. The joined
+     * text is the nameplate's own copy, as it is not interned.
+     * This method should be called from within world.execute().
+     * 
+     * @param world The world the hologram is in
+     * @param hologramRef The hologram entity reference
+     * @param lines The text lines, top to bottom
+     * @return true if the hologram had a nameplate to update
+     */
+    public static boolean setLines(World world, Ref<EntityStore> hologramRef, List<String> lines) {
+        return setNameplate(world, hologramRef, String.join(LINE_SEPARATOR, lines));
+    }
+    
+    /**
+     * Replaces the nameplate text of an existing hologram as given.
+     */
+    private static boolean setNameplate(World world, Ref<EntityStore> hologramRef, String text) {
+        Nameplate nameplate = world.getEntityStore().getStore().getComponent(hologramRef, Nameplate.getComponentType());
+        if (nameplate == null) {
+            return false;
         }
-        
-        return createHologram(world, ((int) signX) + 0.5 + offsetX, signY, ((int) signZ) + 0.5 + offsetZ, text);
+        nameplate.setText(text);
+        return true;
+    }
+    
+    /**
+     * Moves an existing sign text hologram to the given height just off the given side of the sign.
+     * This method should be called from within world.execute().
+     * 
+     * @param world The world the hologram is in
+     * @param hologramRef The hologram entity reference
+     * @param signX Sign X coordinate
+     * @param signY Sign Y coordinate
+     * @param signZ Sign Z coordinate
+     * @param facing The side of the sign the text is shown on, see {@link #facingToward}
+     * @return true if the hologram had a transform to update
+     */
+    public static boolean moveHologram(World world, Ref<EntityStore> hologramRef, double signX, double signY, double signZ, byte facing) {
+        TransformComponent transform = world.getEntityStore().getStore().getComponent(hologramRef, TransformComponent.getComponentType());
+        if (transform == null) {
+            return false;
+        }
+        transform.setPosition(positionInFront(signX, signY, signZ, facing));
+        return true;
+    }
+    
+    /**
+     * Gets the position of a hologram just off the given side of a sign, centered on the block.
+     */
+    private static Vector3d positionInFront(double signX, double signY, double signZ, byte facing) {
+        int[] offset = SignLocation.ADJACENT_OFFSETS[facing];
+        return new Vector3d(((int) signX) + 0.5 + offset[0] * 0.2, signY, ((int) signZ) + 0.5 + offset[1] * 0.2);
     }
     
     /**
@@ -78,12 +200,40 @@ public class HologramUtil {
      * @return The hologram entity reference, or null if creation failed
      */
     public static HologramResult createHologram(World world, double x, double y, double z, String text) {
+        return createHologram(world, x, y, z, text, UUID.randomUUID());
+    }
+    
+    /**
+     * Creates a hologram at the specified position with the given text and entity UUID.
+     * The text is a single line, shared through {@link TextInterner} with every other nameplate
+     * and sign record showing it.
+     * Reusing a sign's stored UUID lets a hologram be rebuilt without updating the storage.
+     * This method should be called from within world.execute().
+     * 
+     * @param world The world to create the hologram in
+     * @param x X coordinate
+     * @param y Y coordinate
+     * @param z Z coordinate
+     * @param text The text to display
+     * @param entityUuid The UUID to give the entity
+     * @return The hologram entity reference, or null if creation failed
+     */
+    public static HologramResult createHologram(World world, double x, double y, double z, String text, UUID entityUuid) {
+        return spawnHologram(world, x, y, z, TextInterner.intern(Objects.requireNonNull(text)), entityUuid);
+    }
+    
+    /**
+     * Spawns a hologram showing the text as given.
+     */
+    private static HologramResult spawnHologram(World world, double x, double y, double z, String text, UUID entityUuid) {
         // Create entity holder
         Holder<EntityStore> holder = EntityStore.REGISTRY.newHolder();
         
-        // Create projectile component (invisible entity shell)
-        ProjectileComponent projectileComponent = new ProjectileComponent("Projectile");
-        holder.putComponent(ProjectileComponent.getComponentType(), projectileComponent);
+        // Mark as a hologram; no simulation system matches this archetype
+        holder.addComponent(HologramComponent.getComponentType(), new HologramComponent());
+        
+        // Never write it into world saves; it is rebuilt from the stored sign text when its chunk loads
+        holder.ensureComponent(EntityStore.REGISTRY.getNonSerializedComponentType());
         
         // Position hologram
         Transform hologramTransform = new Transform(x, y, z, 0.0f, 0.0f, 0.0f);
@@ -91,23 +241,14 @@ public class HologramUtil {
         holder.putComponent(TransformComponent.getComponentType(), 
             new TransformComponent(hologramTransform.getPosition(), hologramTransform.getRotation()));
         
-        // Initialize projectile
-        if (projectileComponent.getProjectile() == null) {
-            projectileComponent.initialize();
-            if (projectileComponent.getProjectile() == null) {
-                return null;
-            }
-        }
-        
         // Add network ID
         long networkId = world.getEntityStore().getStore().getExternalData().takeNextNetworkId();
         holder.addComponent(NetworkId.getComponentType(), new NetworkId((int) networkId));
         
         // Add nameplate with text
-        holder.addComponent(Nameplate.getComponentType(), new Nameplate(Objects.requireNonNull(text)));
+        holder.addComponent(Nameplate.getComponentType(), new Nameplate(text));
         
-        // Create a specific UUID
-        UUID entityUuid = UUID.randomUUID();
+        // Give it the requested UUID
         holder.addComponent(UUIDComponent.getComponentType(), new UUIDComponent(Objects.requireNonNull(entityUuid)));
         
         // Spawn the entity
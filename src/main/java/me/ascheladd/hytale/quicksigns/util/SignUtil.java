@@ -1,6 +1,7 @@
 package me.ascheladd.hytale.quicksigns.util;
 
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.universe.world.World;
 
 /**
  * Utility class for sign-related operations.
@@ -61,4 +62,27 @@ public class SignUtil {
         
         return false;
     }
+    
+    /**
+     * Checks whether the block at a position is an editable sign.
+     * A block that cannot be read (for example because its chunk is not loaded) is reported as unknown,
+     * so callers never mistake a failed read for a removed sign.
+     * 
+     * @param world The world to read the block from
+     * @param x Block X coordinate
+     * @param y Block Y coordinate
+     * @param z Block Z coordinate
+     * @return true if the block is an editable sign, false if it is not, or null if it could not be read
+     */
+    public static Boolean isSignAt(World world, int x, int y, int z) {
+        try {
+            var blockType = world.getBlockType(x, y, z);
+            if (blockType == null) {
+                return null;
+            }
+            return isEditableSign(blockType.getItem());
+        } catch (Exception e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,447 @@
+package me.ascheladd.hytale.quicksigns.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+/**
+ * Runs the same checks against every {@link StorageEngine}, through the public {@link SignHologramStorage},
+ * so {@link WorldSigns}, {@link MappedSignTable} and {@link SqlSignTable} are held to one contract:
+ * point reads and writes, chunk and box queries, surviving a restart, and migrating from one engine to another.
+ * The benchmarks, tagged {@code benchmark} and only run with {@code -Pbenchmark}, report the size on disk and the
+ * latency of each engine for the same workload, and the heap taken by resident sign records, as report entries.
+ */
+class SignStorageTest {
+
+    private static final String WORLD = "default";
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    /**
+     * Signs written by the benchmark, spread over a square of chunks.
+     */
+    private static final int BENCHMARK_SIGNS = 20_000;
+
+    /**
+     * Sign records held by the heap benchmark.
+     */
+    private static final int HEAP_BENCHMARK_SIGNS = 1_000_000;
+
+    @TempDir
+    Path dataFolder;
+
+    private final List<SignHologramStorage> opened = new ArrayList<>();
+
+    @AfterEach
+    void shutdownStorages() {
+        for (SignHologramStorage storage : opened) {
+            storage.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void putGetRemove(StorageEngine engine) {
+        SignHologramStorage storage = open(engine);
+        pageIn(storage, 0, -1);
+        SignRecord record = record(3, "SHOP", "<- Spawn");
+
+        storage.putSign(WORLD, 10, 64, -20, record);
+        assertEquals(record, storage.getSign(WORLD, 10, 64, -20));
+        assertTrue(storage.hasSignAt(WORLD, 10, 64, -20));
+        assertFalse(storage.hasSignAt(WORLD, 10, 65, -20));
+        assertNull(storage.getSign(WORLD, 11, 64, -20));
+
+        SignRecord replaced = record(1, "SOLD");
+        storage.putSign(WORLD, 10, 64, -20, replaced);
+        assertEquals(replaced, storage.getSign(WORLD, 10, 64, -20));
+
+        UUID added = UUID.randomUUID();
+        storage.registerSignHologram(WORLD, 10, 64, -20, added);
+        assertEquals(replaced.withHologram(added), storage.getSign(WORLD, 10, 64, -20));
+
+        assertEquals(replaced.withHologram(added).getHologramIds(), storage.removeSignHolograms(WORLD, 10, 64, -20));
+        assertNull(storage.getSign(WORLD, 10, 64, -20));
+        assertNull(storage.removeSignHolograms(WORLD, 10, 64, -20));
+        assertEquals(0, storage.getSignCount());
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void changesWhileLoading(StorageEngine engine) {
+        SignHologramStorage storage = open(engine);
+        pageIn(storage, 0, 0);
+        put(storage, SignLocation.pack(1, 64, 1), record(1, "kept"));
+        put(storage, SignLocation.pack(2, 64, 1), record(1, "removed"));
+        close(storage);
+
+        // Changes made before the world's signs are loaded are queued, not lost or applied to an empty table
+        SignHologramStorage again = create(engine);
+        again.onChunkLoad(WORLD, 0, 0);
+        SignRecord added = record(2, "added");
+        again.putSign(WORLD, 3, 64, 1, added);
+        again.removeSignHolograms(WORLD, 2, 64, 1);
+        awaitLoaded(again, engine);
+
+        assertEquals(added, again.getSign(WORLD, 3, 64, 1));
+        assertTrue(again.hasSignAt(WORLD, 1, 64, 1));
+        assertFalse(again.hasSignAt(WORLD, 2, 64, 1));
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void changesBeforePageIn(StorageEngine engine) {
+        SignHologramStorage storage = open(engine);
+        pageIn(storage, 0, 0);
+        put(storage, SignLocation.pack(1, 64, 1), record(1, "kept"));
+        close(storage);
+
+        // Changes to a chunk the game has not loaded yet are applied once its signs are read, on top of them
+        SignHologramStorage again = open(engine);
+        SignRecord added = record(2, "added");
+        again.putSign(WORLD, 3, 64, 1, added);
+        pageIn(again, 0, 0);
+        assertEquals(added, again.getSign(WORLD, 3, 64, 1));
+        assertTrue(again.hasSignAt(WORLD, 1, 64, 1));
+        close(again);
+
+        SignHologramStorage reopened = open(engine);
+        pageIn(reopened, 0, 0);
+        assertEquals(added, reopened.getSign(WORLD, 3, 64, 1));
+        assertEquals(2, reopened.getSignsInChunk(WORLD, 0, 0).length);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void chunkAndBoxQueries(StorageEngine engine) {
+        SignHologramStorage storage = open(engine);
+        pageIn(storage, -1, 0, 0, 0, 0, 1);
+        long[] inFirstChunk = {
+            SignLocation.pack(0, 10, 0), SignLocation.pack(5, 70, 31), SignLocation.pack(31, 64, 2)
+        };
+        long[] inNegativeChunk = { SignLocation.pack(-1, 64, 0), SignLocation.pack(-32, 64, 31) };
+        for (long location : concat(inFirstChunk, inNegativeChunk, new long[] { SignLocation.pack(3, 64, 40) })) {
+            put(storage, location, record(1, "line"));
+        }
+
+        assertArrayEquals(sorted(inFirstChunk), storage.getSignsInChunk(WORLD, 0, 0));
+        assertArrayEquals(sorted(inNegativeChunk), storage.getSignsInChunk(WORLD, -1, 0));
+        assertArrayEquals(new long[0], storage.getSignsInChunk(WORLD, 5, 5));
+
+        // Spans chunks -1, 0 and 1 on z; bounds are inclusive and may be given in any order
+        assertArrayEquals(sorted(new long[] { SignLocation.pack(-1, 64, 0), SignLocation.pack(3, 64, 40),
+                SignLocation.pack(31, 64, 2) }),
+            sorted(storage.getSignsInBox(WORLD, 31, 64, 40, -1, 64, 0)));
+        assertArrayEquals(new long[0], storage.getSignsInBox(WORLD, 100, 0, 100, 120, 255, 120));
+
+        // Neighbours of (0, 64, 0): the sign at (-1, 64, 0) sits across the chunk border
+        int mask = storage.getAdjacentSignMask(WORLD, 0, 64, 0);
+        int[][] offsets = SignLocation.ADJACENT_OFFSETS;
+        for (int i = 0; i < offsets.length; i++) {
+            boolean expected = offsets[i][0] == -1 && offsets[i][1] == 0;
+            assertEquals(expected, (mask & (1 << i)) != 0, "neighbour " + i);
+        }
+
+        assertEquals(6, storage.getLoadedSigns(WORLD).length);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void reopen(StorageEngine engine) {
+        SignHologramStorage storage = open(engine);
+        pageIn(storage, 0, 0);
+        SignRecord kept = record(2, "Welcome", "to town");
+        storage.putSign(WORLD, 1, 64, 1, kept);
+        storage.putSign(WORLD, 2, 64, 1, record(1, "removed"));
+        storage.removeSignHolograms(WORLD, 2, 64, 1);
+        storage.saveSync();
+        SignRecord afterCheckpoint = record(1, "written after the checkpoint");
+        storage.putSign(WORLD, 3, 64, 1, afterCheckpoint);
+        close(storage);
+
+        SignHologramStorage reopened = open(engine);
+        pageIn(reopened, 0, 0);
+        assertEquals(kept, reopened.getSign(WORLD, 1, 64, 1));
+        assertNull(reopened.getSign(WORLD, 2, 64, 1));
+        assertEquals(afterCheckpoint, reopened.getSign(WORLD, 3, 64, 1));
+        assertArrayEquals(sorted(new long[] { SignLocation.pack(1, 64, 1), SignLocation.pack(3, 64, 1) }),
+            reopened.getSignsInChunk(WORLD, 0, 0));
+    }
+
+    @ParameterizedTest
+    @MethodSource("enginePairs")
+    void migrate(StorageEngine from, StorageEngine to) {
+        SignHologramStorage storage = open(from);
+        pageIn(storage, 0, 0, 3, -2);
+        List<Long> locations = new ArrayList<>();
+        List<SignRecord> records = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int chunkX = i % 2 == 0 ? 0 : 3;
+            int chunkZ = i % 2 == 0 ? 0 : -2;
+            long location = SignLocation.pack((chunkX << SignLocation.CHUNK_SHIFT) + i % 32, 60 + i,
+                (chunkZ << SignLocation.CHUNK_SHIFT) + i / 2);
+            SignRecord record = record(1 + i % 4, "sign " + i, i % 3 == 0 ? "SHOP" : "");
+            put(storage, location, record);
+            locations.add(location);
+            records.add(record);
+        }
+        close(storage);
+
+        SignHologramStorage migrated = open(to);
+        pageIn(migrated, 0, 0, 3, -2);
+        for (int i = 0; i < locations.size(); i++) {
+            long location = locations.get(i);
+            assertEquals(records.get(i), migrated.getSign(WORLD,
+                SignLocation.unpackX(location), SignLocation.unpackY(location), SignLocation.unpackZ(location)));
+        }
+        assertEquals(25, migrated.getSignsInChunk(WORLD, 3, -2).length);
+        close(migrated);
+
+        // The migrated shard is now the engine's own, and migrating again finds nothing to do
+        SignHologramStorage again = open(to);
+        pageIn(again, 0, 0, 3, -2);
+        assertEquals(locations.size(), again.getSignCount());
+    }
+
+    @Tag("benchmark")
+    @ParameterizedTest
+    @EnumSource(StorageEngine.class)
+    void benchmark(StorageEngine engine, TestReporter reporter) throws IOException {
+        int chunksPerSide = 16;
+        SignHologramStorage storage = open(engine);
+        for (int cx = 0; cx < chunksPerSide; cx++) {
+            for (int cz = 0; cz < chunksPerSide; cz++) {
+                pageIn(storage, cx, cz);
+            }
+        }
+        long[] locations = new long[BENCHMARK_SIGNS];
+        int span = chunksPerSide << SignLocation.CHUNK_SHIFT;
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = SignLocation.pack(i % span, 40 + i / (span * span) * 4 + i % 7, i / span % span);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < locations.length; i++) {
+            put(storage, locations[i], record(1 + i % 4, "SHOP", "Item " + i % 100));
+        }
+        long putNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (long location : locations) {
+            assertTrue(storage.hasSignAt(WORLD,
+                SignLocation.unpackX(location), SignLocation.unpackY(location), SignLocation.unpackZ(location)));
+        }
+        long getNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int found = 0;
+        for (int cx = 0; cx < chunksPerSide; cx++) {
+            for (int cz = 0; cz < chunksPerSide; cz++) {
+                found += storage.getSignsInChunk(WORLD, cx, cz).length;
+            }
+        }
+        long chunkNanos = System.nanoTime() - start;
+        assertEquals(locations.length, found);
+
+        start = System.nanoTime();
+        storage.saveSync();
+        long saveNanos = System.nanoTime() - start;
+        close(storage);
+
+        start = System.nanoTime();
+        SignHologramStorage reopened = open(engine);
+        long reopenNanos = System.nanoTime() - start;
+        pageIn(reopened, 0, 0);
+        assertTrue(reopened.hasSignAt(WORLD, 0, 40, 0));
+
+        reporter.publishEntry(Map.of(
+            "engine", engine.getConfigName(),
+            "signs", String.valueOf(locations.length),
+            "diskKiB", String.valueOf(sizeOnDisk() / 1024),
+            "putMicros", String.format("%.2f", putNanos / 1000.0 / locations.length),
+            "readMicros", String.format("%.2f", getNanos / 1000.0 / locations.length),
+            "chunkQueryMicros", String.format("%.1f", chunkNanos / 1000.0 / (chunksPerSide * chunksPerSide)),
+            "checkpointMillis", String.valueOf(saveNanos / 1_000_000),
+            "reopenMillis", String.valueOf(reopenNanos / 1_000_000)));
+    }
+
+    @Tag("benchmark")
+    @Test
+    void recordHeapBenchmark(TestReporter reporter) {
+        String[] vocabulary = {"SHOP", "<- Spawn", "Market", "Farms ->", "Welcome!", "Keep out"};
+        long before = usedHeap();
+        SignRecord[] records = new SignRecord[HEAP_BENCHMARK_SIGNS];
+        for (int i = 0; i < records.length; i++) {
+            List<UUID> uuids = new ArrayList<>(3);
+            for (int j = 0; j <= i % 3; j++) {
+                uuids.add(new UUID(i, j));
+            }
+            records[i] = new SignRecord(uuids, List.of(vocabulary[i % vocabulary.length], "Item " + i % 100), (byte) (i % 4));
+        }
+        long recordBytes = usedHeap() - before;
+
+        // The holograms alone: as records without text, and as the lists of UUID objects records held before
+        before = usedHeap();
+        SignRecord[] idRecords = new SignRecord[HEAP_BENCHMARK_SIGNS];
+        for (int i = 0; i < idRecords.length; i++) {
+            idRecords[i] = SignRecord.ofHolograms(records[i].getHologramIds());
+        }
+        long idRecordBytes = usedHeap() - before;
+        before = usedHeap();
+        @SuppressWarnings("unchecked")
+        List<UUID>[] lists = new List[HEAP_BENCHMARK_SIGNS];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = records[i].getHologramIds();
+        }
+        long listBytes = usedHeap() - before;
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (SignRecord record : records) {
+            for (int i = 0; i < record.getHologramCount(); i++) {
+                checksum += record.lsbAt(i);
+            }
+        }
+        long scanNanos = System.nanoTime() - start;
+        // Keeps all three sets reachable until every measurement is taken
+        assertEquals(records.length, idRecords.length);
+        assertEquals(records.length, lists.length);
+        assertTrue(checksum > 0);
+
+        reporter.publishEntry(Map.of(
+            "signs", String.valueOf(HEAP_BENCHMARK_SIGNS),
+            "recordBytesPerSign", String.valueOf(recordBytes / HEAP_BENCHMARK_SIGNS),
+            "idOnlyRecordBytesPerSign", String.valueOf(idRecordBytes / HEAP_BENCHMARK_SIGNS),
+            "uuidListBytesPerSign", String.valueOf(listBytes / HEAP_BENCHMARK_SIGNS),
+            "idScanNanosPerSign", String.format("%.1f", (double) scanNanos / HEAP_BENCHMARK_SIGNS)));
+    }
+
+    static Stream<Arguments> enginePairs() {
+        List<Arguments> pairs = new ArrayList<>();
+        for (StorageEngine from : StorageEngine.values()) {
+            for (StorageEngine to : StorageEngine.values()) {
+                if (from != to) {
+                    pairs.add(Arguments.of(from, to));
+                }
+            }
+        }
+        return pairs.stream();
+    }
+
+    /**
+     * Opens the storage in the test's data folder with an engine and waits until the test world is loaded.
+     */
+    private SignHologramStorage open(StorageEngine engine) {
+        SignHologramStorage storage = create(engine);
+        storage.loadWorldAsync(WORLD);
+        awaitLoaded(storage, engine);
+        return storage;
+    }
+
+    /**
+     * Opens the storage in the test's data folder with an engine, without loading any world.
+     */
+    private SignHologramStorage create(StorageEngine engine) {
+        if (engine == StorageEngine.SQL) {
+            // Without the driver the shard falls back to region files, which would pass for the wrong reason
+            assertDoesNotThrow(() -> Class.forName("org.sqlite.JDBC"), "SQLite driver on the test class path");
+        }
+        SignHologramStorage storage = new SignHologramStorage(dataFolder, engine.getConfigName(), LOGGER);
+        opened.add(storage);
+        return storage;
+    }
+
+    private static void awaitLoaded(SignHologramStorage storage, StorageEngine engine) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!storage.isWorldLoaded(WORLD)) {
+            if (System.nanoTime() - deadline >= 0) {
+                throw new AssertionError("World did not load with " + engine);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void close(SignHologramStorage storage) {
+        storage.shutdown();
+        opened.remove(storage);
+    }
+
+    /**
+     * Loads chunk columns given as x, z pairs, like the game does before signs in them are read,
+     * and waits until their signs are in memory.
+     */
+    private static void pageIn(SignHologramStorage storage, int... chunks) {
+        for (int i = 0; i < chunks.length; i += 2) {
+            storage.onChunkLoad(WORLD, chunks[i], chunks[i + 1]).join();
+        }
+    }
+
+    private static void put(SignHologramStorage storage, long location, SignRecord record) {
+        storage.putSign(WORLD, SignLocation.unpackX(location), SignLocation.unpackY(location), SignLocation.unpackZ(location), record);
+    }
+
+    private static SignRecord record(int holograms, String... lines) {
+        List<UUID> uuids = new ArrayList<>(holograms);
+        for (int i = 0; i < holograms; i++) {
+            uuids.add(UUID.randomUUID());
+        }
+        return new SignRecord(uuids, List.of(lines), (byte) (holograms % 4));
+    }
+
+    /**
+     * Gets the heap in use after collecting garbage, as closely as the runtime allows.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long[] concat(long[]... arrays) {
+        return Arrays.stream(arrays).flatMapToLong(Arrays::stream).toArray();
+    }
+
+    private static long[] sorted(long[] locations) {
+        long[] copy = locations.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    private long sizeOnDisk() throws IOException {
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    return 0;
+                }
+            }).sum();
+        }
+    }
+}